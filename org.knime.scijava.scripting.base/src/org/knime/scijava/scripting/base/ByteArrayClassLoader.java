@@ -0,0 +1,51 @@
+package org.knime.scijava.scripting.base;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A class loader which defines classes from byte code held in memory. Classes
+ * which are not contained in the byte code map are loaded from the parent
+ * class loader.
+ */
+public class ByteArrayClassLoader extends ClassLoader {
+
+    static {
+        registerAsParallelCapable();
+    }
+
+    private final Map<String, byte[]> m_classes;
+
+    /**
+     * Constructor.
+     *
+     * @param parent
+     *            class loader to delegate to for classes not in
+     *            <code>classes</code>
+     * @param classes
+     *            map of binary class name to class file contents
+     */
+    public ByteArrayClassLoader(final ClassLoader parent,
+            final Map<String, byte[]> classes) {
+        super(parent);
+        m_classes = classes;
+    }
+
+    @Override
+    protected Class<?> findClass(final String name)
+            throws ClassNotFoundException {
+        final byte[] byteCode = m_classes.get(name);
+        if (byteCode == null) {
+            throw new ClassNotFoundException(name);
+        }
+        return defineClass(name, byteCode, 0, byteCode.length);
+    }
+
+    /**
+     * @return unmodifiable map of binary class name to class file contents of
+     *         the classes defined by this class loader.
+     */
+    public Map<String, byte[]> getClassBytes() {
+        return Collections.unmodifiableMap(m_classes);
+    }
+}
@@ -1,5 +1,8 @@
 package org.knime.scijava.scripting.base;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.scijava.Context;
 import org.scijava.command.CommandInfo;
 import org.scijava.module.Module;
@@ -13,6 +16,10 @@ public class CommandCompileProductHelper implements CompileProductHelper {
     private final CommandInfo m_info;
     private final Context m_context;
 
+    /* names of inputs and outputs, to reset modules without copying maps */
+    private volatile String[] m_inputNames;
+    private volatile String[] m_outputNames;
+
     public CommandCompileProductHelper(CommandInfo info, Context context) {
         m_info = info;
         m_context = context;
@@ -31,20 +38,49 @@ public class CommandCompileProductHelper implements CompileProductHelper {
     @Override
     public Module createModule(final ScriptLanguage lang)
             throws ModuleException {
+        return createModule(lang, m_context);
+    }
+
+    @Override
+    public Module createModule(final ScriptLanguage lang,
+            final Context context) throws ModuleException {
         final Module module = m_info.createModule();
-        m_context.inject(module);
+        context.inject(module);
 
         return module;
     }
 
     @Override
     public void resetModule(Module m) {
-        for (final String input : m.getInputs().keySet()) {
+        if (m_outputNames == null) {
+            // NB: concurrent initialization results in equal arrays, the
+            // volatile write of the outputs publishes the inputs
+            m_inputNames = getNames(m_info.inputs());
+            m_outputNames = getNames(m_info.outputs());
+        }
+
+        for (final String input : m_inputNames) {
             m.setResolved(input, false);
         }
-        for (final String output : m.getOutputs().keySet()) {
+        for (final String output : m_outputNames) {
             m.setResolved(output, false);
         }
     }
 
+    @Override
+    public void releaseModule(final Module m) {
+        /* commands do not hold any resources */
+    }
+
+    /*
+     * Collect the names of the given items.
+     */
+    private static String[] getNames(final Iterable<ModuleItem<?>> items) {
+        final List<String> names = new ArrayList<>();
+        for (final ModuleItem<?> item : items) {
+            names.add(item.getName());
+        }
+        return names.toArray(new String[names.size()]);
+    }
+
 }
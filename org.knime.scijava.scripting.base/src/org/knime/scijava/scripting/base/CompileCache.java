@@ -0,0 +1,251 @@
+package org.knime.scijava.scripting.base;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.script.ScriptException;
+
+import org.scijava.command.Command;
+import org.scijava.script.ScriptLanguage;
+
+/**
+ * JVM wide cache of the classes of compiled Java scripts. Classes are stored
+ * under a hash of the language name and the script code, so that identical
+ * scripts of different nodes are only compiled once. The least recently used
+ * classes are evicted once the cache exceeds its capacity.
+ * <p>
+ * Only classes are cached, they do not reference the context of the node
+ * which compiled them. Every node creates its own {@link CompileProductHelper}
+ * from a cached class, using its own context. Concurrent lookups of a script
+ * which is not cached yet wait for a single compilation.
+ * </p>
+ */
+public class CompileCache {
+
+    /** System property to configure the maximum number of cached classes */
+    public static final String CAPACITY_PROPERTY =
+            "knime.scijava.scripting.compilecache.size";
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    /** singleton instance */
+    private static CompileCache m_instance = null;
+
+    /* compiled or currently compiling classes */
+    private final Map<String, Future<Class<? extends Command>>> m_classes;
+
+    private final AtomicLong m_hits = new AtomicLong();
+    private final AtomicLong m_misses = new AtomicLong();
+
+    /**
+     * Compiles a script into a command class.
+     */
+    @FunctionalInterface
+    public interface Compiler {
+
+        /**
+         * @return the compiled command class
+         * @throws ScriptException
+         *             if the script could not be compiled
+         */
+        Class<? extends Command> compile() throws ScriptException;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param capacity
+     *            maximum number of classes to keep in the cache
+     */
+    public CompileCache(final int capacity) {
+        m_classes = new LinkedHashMap<String, Future<Class<? extends Command>>>(
+                16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String,
+                    Future<Class<? extends Command>>> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Get the JVM wide cache instance.
+     *
+     * @return the singletons instance
+     */
+    public static synchronized CompileCache get() {
+        if (m_instance == null) {
+            m_instance = new CompileCache(
+                    Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY));
+        }
+        return m_instance;
+    }
+
+    /**
+     * Get the command class compiled from a script, compiling it with the
+     * given compiler if it is not cached yet. If another thread is compiling
+     * the script already, its result is awaited. If that compilation fails,
+     * the script is compiled again with the given compiler, so that its
+     * errors are reported to the caller. Failed compilations are not cached.
+     *
+     * @param script
+     *            the script code
+     * @param language
+     *            the language of the script
+     * @param compiler
+     *            compiles the script if it is not cached
+     * @return the command class
+     * @throws ScriptException
+     *             if the script could not be compiled
+     */
+    public Class<? extends Command> get(final String script,
+            final ScriptLanguage language, final Compiler compiler)
+            throws ScriptException {
+        final String key = createKey(script, language);
+        final FutureTask<Class<? extends Command>> task =
+                new FutureTask<>(compiler::compile);
+
+        Future<Class<? extends Command>> future;
+        synchronized (m_classes) {
+            future = m_classes.get(key);
+            if (future == null) {
+                m_classes.put(key, task);
+            }
+        }
+
+        if (future == null) {
+            m_misses.incrementAndGet();
+            task.run();
+            return getResult(key, task);
+        }
+
+        m_hits.incrementAndGet();
+        try {
+            return getResult(key, future);
+        } catch (final ScriptException | RuntimeException e) {
+            // NB: the compiler of the caller reports the errors
+            return compiler.compile();
+        }
+    }
+
+    /*
+     * Wait for a compilation, removing it from the cache if it failed.
+     */
+    private Class<? extends Command> getResult(final String key,
+            final Future<Class<? extends Command>> future)
+            throws ScriptException {
+        try {
+            return future.get();
+        } catch (final ExecutionException e) {
+            synchronized (m_classes) {
+                if (m_classes.get(key) == future) {
+                    m_classes.remove(key);
+                }
+            }
+            final Throwable cause = e.getCause();
+            if (cause instanceof ScriptException) {
+                throw (ScriptException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new ScriptException((Exception) cause);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ScriptException(
+                    "Interrupted while waiting for the script to compile.");
+        }
+    }
+
+    /**
+     * Add a compiled command class to the cache, e.g. one which was restored
+     * from a {@link CompiledCommandArchive}.
+     *
+     * @param script
+     *            the script code the class was compiled from
+     * @param language
+     *            the language of the script
+     * @param commandClass
+     *            the command class
+     */
+    public void put(final String script, final ScriptLanguage language,
+            final Class<? extends Command> commandClass) {
+        final String key = createKey(script, language);
+        synchronized (m_classes) {
+            m_classes.put(key, CompletableFuture.completedFuture(commandClass));
+        }
+    }
+
+    /**
+     * Remove all classes from the cache.
+     */
+    public void clear() {
+        synchronized (m_classes) {
+            m_classes.clear();
+        }
+    }
+
+    /**
+     * @return number of classes currently in the cache
+     */
+    public int size() {
+        synchronized (m_classes) {
+            return m_classes.size();
+        }
+    }
+
+    /**
+     * @return number of lookups which found a class
+     */
+    public long getHitCount() {
+        return m_hits.get();
+    }
+
+    /**
+     * @return number of lookups which did not find a class
+     */
+    public long getMissCount() {
+        return m_misses.get();
+    }
+
+    /**
+     * Create the cache key for a script, which is the hex encoded SHA-256 hash
+     * of language name and code.
+     *
+     * @param script
+     *            the script code
+     * @param language
+     *            the language of the script
+     * @return the key
+     */
+    public static String createKey(final String script,
+            final ScriptLanguage language) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(language.getLanguageName()
+                    .getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(script.getBytes(StandardCharsets.UTF_8));
+
+            final StringBuilder builder = new StringBuilder();
+            for (final byte b : digest.digest()) {
+                builder.append(String.format("%02x", b));
+            }
+            return builder.toString();
+        } catch (final NoSuchAlgorithmException e) {
+            // NB: every JVM is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,14 +1,11 @@
 package org.knime.scijava.scripting.base;
 
-import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
 import java.io.StringReader;
 import java.io.Writer;
+import java.util.Map;
 
 import javax.script.ScriptException;
 
-import org.knime.core.util.FileUtil;
 import org.scijava.Context;
 import org.scijava.command.Command;
 import org.scijava.command.CommandInfo;
@@ -23,48 +20,85 @@ import org.scijava.script.ScriptLanguage;
  */
 public class CompileHelper {
 
-    private File m_tempDir;
+    /* compiler for Java scripts, shared by all CompileHelpers */
+    private static InMemoryJavaCompiler m_javaCompiler = null;
+
     private String m_script;
 
     private Context m_context;
     private Writer m_errorWriter;
     private Writer m_outputWriter;
 
+    /* whether compiled classes are shared through the CompileCache */
+    private final boolean m_useCache;
+
     /**
      * Constructor
      *
      * @param context
      * @param outputWriter
-     * @throws IOException
      */
     public CompileHelper(Context context, Writer errorWriter,
-            Writer outputWriter) throws IOException {
+            Writer outputWriter) {
+        this(context, errorWriter, outputWriter, true);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param context
+     * @param errorWriter
+     * @param outputWriter
+     * @param useCache
+     *            whether to share the classes of Java scripts through the
+     *            {@link CompileCache}. Compilers of drafts, e.g. while the
+     *            script is being edited, should not fill the cache.
+     */
+    public CompileHelper(Context context, Writer errorWriter,
+            Writer outputWriter, boolean useCache) {
 
         m_errorWriter = errorWriter;
         m_outputWriter = outputWriter;
-        m_tempDir = FileUtil.createTempDir("ScriptingNode");
 
         m_context = context;
+        m_useCache = useCache;
+    }
+
+    /**
+     * Whether scripts of a language are compiled by
+     * {@link #compile(String, ScriptLanguage)}. Scripts of other languages
+     * are only parsed when executed, so compiling them reports no errors.
+     *
+     * @param language
+     *            the script language
+     * @return <code>true</code> if the scripts are compiled
+     */
+    public static boolean isCompiled(final ScriptLanguage language) {
+        return language instanceof JavaScriptLanguage;
     }
 
     /*
-     * Write script code from the current settings to a file in the temp
-     * directory.
+     * Get the compiler for Java scripts, which compiles against the bundles
+     * of the ScriptingGateway.
      */
-    private void writeScriptToFile(final ScriptLanguage lang) {
-        try (Writer w = new FileWriter(
-                new File(m_tempDir, "script." + lang.getExtensions().get(0)))) {
-            w.write(m_script);
-            w.close();
-        } catch (IOException exc) {
-            exc.printStackTrace();
+    private static synchronized InMemoryJavaCompiler getJavaCompiler() {
+        if (m_javaCompiler == null) {
+            m_javaCompiler = new InMemoryJavaCompiler(
+                    ScriptingGateway.get().getClassLoader().getBundleUrls());
         }
+        return m_javaCompiler;
     }
 
     /**
      * Compile the given script with the given language Note that compilation
      * may be done lazily.
-     * 
+     * <p>
+     * The classes of Java scripts are shared through the {@link CompileCache}
+     * unless disabled for this helper, so a script which has already been
+     * compiled by any node is not compiled again. The returned product is
+     * always created for the context of this helper.
+     * </p>
+     *
      * @param script
      *            the script
      * @param language
@@ -76,31 +110,77 @@ public class CompileHelper {
             final ScriptLanguage language) throws ScriptException {
         setScript(script, language);
 
-        if (language instanceof JavaScriptLanguage) {
-            JavaEngine scriptEngine = (JavaEngine) language.getScriptEngine();
-            scriptEngine.getContext().setErrorWriter(m_errorWriter);
-            scriptEngine.getContext().setWriter(m_outputWriter);
-
-            Class<? extends Command> commandClass = null;
-            commandClass = (Class<? extends Command>) scriptEngine
-                    .compile(new StringReader(m_script));
-            if (commandClass == null) {
-                throw new ScriptException("Code could not be parsed as Java,"
-                        + " did you select the right language?");
-            }
+        if (isCompiled(language)) {
+            final Class<? extends Command> commandClass = m_useCache
+                    ? CompileCache.get().get(script, language,
+                            () -> compileCommand(language))
+                    : compileCommand(language);
             return new CommandCompileProductHelper(
                     new CommandInfo(commandClass), m_context);
         }
 
-        // create script module for execution
-        final File scriptFile = new File(m_tempDir,
-                "script." + language.getExtensions().get(0));
-
+        // create script module for execution. The path is only used to
+        // identify the script, its contents are read from the reader.
         final ScriptInfo info = new ScriptInfo(m_context,
-                scriptFile.getAbsolutePath(), new StringReader(m_script));
+                "script." + language.getExtensions().get(0),
+                new StringReader(m_script));
         return new ScriptCompileProductHelper(info, m_context);
     }
 
+    /*
+     * Compile the current Java script into a command class, bypassing the
+     * compile cache.
+     */
+    private Class<? extends Command> compileCommand(
+            final ScriptLanguage language) throws ScriptException {
+        final String className = InMemoryJavaCompiler.findClassName(m_script);
+        if (className != null) {
+            return compileInMemory(className);
+        }
+
+        // NB: fall back to JavaEngine for code without a public class
+        JavaEngine scriptEngine = (JavaEngine) language.getScriptEngine();
+        scriptEngine.getContext().setErrorWriter(m_errorWriter);
+        scriptEngine.getContext().setWriter(m_outputWriter);
+
+        Class<? extends Command> commandClass = null;
+        commandClass = (Class<? extends Command>) scriptEngine
+                .compile(new StringReader(m_script));
+        if (commandClass == null) {
+            throw new ScriptException("Code could not be parsed as Java,"
+                    + " did you select the right language?");
+        }
+        return commandClass;
+    }
+
+    /*
+     * Compile the current Java script in memory and load the resulting
+     * classes into a dedicated class loader. The classes are compiled against
+     * the bundles of the ScriptingGateway and shared by all threads through
+     * the CompileCache, so they are linked against the gateway's class loader
+     * rather than the context class loader of the compiling thread.
+     */
+    private Class<? extends Command> compileInMemory(final String className)
+            throws ScriptException {
+        final Map<String, byte[]> classes =
+                getJavaCompiler().compile(className, m_script, m_errorWriter);
+
+        final ClassLoader loader = new ByteArrayClassLoader(
+                ScriptingGateway.get().createUrlClassLoader(), classes);
+        final Class<?> c;
+        try {
+            c = loader.loadClass(className);
+        } catch (final ClassNotFoundException e) {
+            throw new ScriptException(e);
+        }
+
+        if (!Command.class.isAssignableFrom(c)) {
+            throw new ScriptException(className + " does not implement "
+                    + Command.class.getName() + ".");
+        }
+        return c.asSubclass(Command.class);
+    }
+
     /**
      * Set the script to compile.
      *
@@ -110,6 +190,5 @@ public class CompileHelper {
     protected void setScript(final String script,
             final ScriptLanguage language) {
         m_script = script;
-        writeScriptToFile(language);
     }
 }
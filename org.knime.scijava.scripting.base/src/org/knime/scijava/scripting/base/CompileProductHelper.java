@@ -1,5 +1,6 @@
 package org.knime.scijava.scripting.base;
 
+import org.scijava.Context;
 import org.scijava.module.Module;
 import org.scijava.module.ModuleException;
 import org.scijava.module.ModuleInfo;
@@ -20,6 +21,31 @@ public interface CompileProductHelper {
 
     public Module createModule(ScriptLanguage language) throws ModuleException;
 
+    /**
+     * Create a module which is injected with the given context instead of the
+     * context this compile product was created with. Modules created in
+     * different contexts do not share any context local services, which allows
+     * running them concurrently.
+     *
+     * @param language
+     *            the language to execute the module with
+     * @param context
+     *            the context to inject into the module
+     * @return the created module
+     * @throws ModuleException
+     */
+    public Module createModule(ScriptLanguage language, Context context)
+            throws ModuleException;
+
     public void resetModule(Module m);
 
+    /**
+     * Free resources held by a module which is not going to be run anymore,
+     * e.g. give its script engine back to the {@link ScriptEnginePool}.
+     *
+     * @param m
+     *            the module
+     */
+    public void releaseModule(Module m);
+
 }
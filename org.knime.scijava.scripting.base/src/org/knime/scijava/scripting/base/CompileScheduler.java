@@ -0,0 +1,118 @@
+package org.knime.scijava.scripting.base;
+
+import java.io.StringWriter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.knime.scijava.core.TempClassLoader;
+import org.scijava.Context;
+import org.scijava.plugins.scripting.java.JavaScriptLanguage;
+import org.scijava.script.ScriptLanguage;
+
+/**
+ * Compiles scripts in the background into the {@link CompileCache}, e.g. for
+ * all scripting nodes of a workflow which was just loaded. At most a few
+ * scripts are compiled in parallel, further scripts are queued.
+ * <p>
+ * Errors are ignored, the node compiling the script before its execution
+ * reports them.
+ * </p>
+ */
+public class CompileScheduler {
+
+    private static final int PARALLELISM = Math.max(1,
+            Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+
+    private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+
+    /* compilations which were scheduled but did not finish yet */
+    private static final Map<String, Future<?>> PENDING =
+            new ConcurrentHashMap<>();
+
+    private CompileScheduler() {
+        // NB Utility class
+    }
+
+    /**
+     * Schedule the compilation of a script, unless it is already cached or
+     * scheduled. Only Java scripts are compiled ahead, scripts of other
+     * languages are not cached.
+     *
+     * @param context
+     *            context to compile the script in
+     * @param script
+     *            the script code
+     * @param language
+     *            the language of the script
+     */
+    public static void schedule(final Context context, final String script,
+            final ScriptLanguage language) {
+        if (!(language instanceof JavaScriptLanguage)) {
+            return;
+        }
+        final String key = CompileCache.createKey(script, language);
+        final FutureTask<Void> task = new FutureTask<>(() -> {
+            try (final TempClassLoader cl = new TempClassLoader(
+                    ScriptingGateway.get().createUrlClassLoader())) {
+                new CompileHelper(context, new StringWriter(),
+                        new StringWriter()).compile(script, language);
+            } catch (final Exception e) {
+                // NB: the node reports the error when compiling again
+            }
+        }, null);
+
+        if (PENDING.putIfAbsent(key, task) == null) {
+            EXECUTOR.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    PENDING.remove(key, task);
+                }
+            });
+        }
+    }
+
+    /**
+     * Wait for a scheduled compilation of the script to finish, so that the
+     * script is not compiled twice.
+     *
+     * @param script
+     *            the script code
+     * @param language
+     *            the language of the script
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    public static void await(final String script,
+            final ScriptLanguage language) throws InterruptedException {
+        final Future<?> future =
+                PENDING.get(CompileCache.createKey(script, language));
+        if (future == null) {
+            return;
+        }
+        try {
+            future.get();
+        } catch (final ExecutionException e) {
+            // NB: errors are reported by the caller compiling again
+        }
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                PARALLELISM, PARALLELISM, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    final Thread thread =
+                            new Thread(r, "SciJava Scripting Compiler");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
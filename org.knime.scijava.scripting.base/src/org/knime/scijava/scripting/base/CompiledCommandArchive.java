@@ -0,0 +1,286 @@
+package org.knime.scijava.scripting.base;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarInputStream;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.FrameworkUtil;
+import org.scijava.Context;
+import org.scijava.command.Command;
+import org.scijava.command.CommandInfo;
+import org.scijava.plugins.scripting.java.JavaEngine;
+import org.scijava.script.ScriptLanguage;
+
+/**
+ * Stores the byte code of compiled Java scripts in a jar file, so that the
+ * classes can be defined again without running the compiler.
+ * <p>
+ * The jar manifest contains a hash of script code, language name and the
+ * versions of the bundles involved in compiling the script. Archives whose
+ * hash does not match the current script are ignored.
+ * </p>
+ * <p>
+ * The archive is stored with the node internals, which KNIME only saves and
+ * loads for executed nodes. Nodes which were only configured compile their
+ * script again after loading a workflow.
+ * </p>
+ */
+public class CompiledCommandArchive {
+
+    /** Name of the archive file in a directory */
+    public static final String FILE_NAME = "compiled-script.jar";
+
+    private static final Attributes.Name HASH_ATTRIBUTE =
+            new Attributes.Name("Script-Hash");
+
+    private static final String CLASS_SUFFIX = ".class";
+
+    private CompiledCommandArchive() {
+        // NB Utility class
+    }
+
+    /**
+     * Write the byte code of a compile product to {@link #FILE_NAME} in the
+     * given directory. Only products of Java scripts contain byte code, for
+     * all other products nothing is written. Nothing is written either if
+     * not all classes compiled from the script can be found.
+     *
+     * @param product
+     *            the compile product
+     * @param script
+     *            code the product was compiled from
+     * @param language
+     *            language the product was compiled with
+     * @param directory
+     *            directory to write the archive to
+     * @return <code>true</code> if an archive was written
+     * @throws IOException
+     */
+    public static boolean save(final CompileProductHelper product,
+            final String script, final ScriptLanguage language,
+            final File directory) throws IOException {
+        if (!(product.getModuleInfo() instanceof CommandInfo)) {
+            return false;
+        }
+
+        final Class<?> commandClass;
+        try {
+            commandClass = ((CommandInfo) product.getModuleInfo())
+                    .loadDelegateClass();
+        } catch (final ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+
+        final Map<String, byte[]> classes = collectClasses(commandClass);
+        if (classes.isEmpty()) {
+            return false;
+        }
+
+        final Manifest manifest = new Manifest();
+        final Attributes attributes = manifest.getMainAttributes();
+        attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        attributes.put(Attributes.Name.MAIN_CLASS, commandClass.getName());
+        attributes.put(HASH_ATTRIBUTE, createHash(script, language));
+
+        try (JarOutputStream out = new JarOutputStream(
+                new FileOutputStream(new File(directory, FILE_NAME)),
+                manifest)) {
+            for (final Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                out.putNextEntry(new JarEntry(
+                        entry.getKey().replace('.', '/') + CLASS_SUFFIX));
+                out.write(entry.getValue());
+                out.closeEntry();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Define the classes stored in the archive in the given directory and
+     * load the command class from them.
+     *
+     * @param directory
+     *            directory containing the archive
+     * @param script
+     *            the current script code
+     * @param language
+     *            the current language
+     * @param parent
+     *            class loader to resolve classes not contained in the archive
+     * @return the command class or <code>null</code> if there is no archive
+     *         or it was created for a different script, language or bundle
+     *         versions.
+     * @throws IOException
+     */
+    public static Class<? extends Command> load(final File directory,
+            final String script, final ScriptLanguage language,
+            final ClassLoader parent) throws IOException {
+        final File file = new File(directory, FILE_NAME);
+        if (!file.isFile()) {
+            return null;
+        }
+
+        final Map<String, byte[]> classes = new HashMap<>();
+        final String mainClass;
+        try (JarInputStream in =
+                new JarInputStream(new FileInputStream(file))) {
+            final Manifest manifest = in.getManifest();
+            if (manifest == null || !createHash(script, language).equals(
+                    manifest.getMainAttributes().get(HASH_ATTRIBUTE))) {
+                return null;
+            }
+            mainClass = manifest.getMainAttributes()
+                    .getValue(Attributes.Name.MAIN_CLASS);
+
+            JarEntry entry;
+            while ((entry = in.getNextJarEntry()) != null) {
+                final String name = entry.getName();
+                if (name.endsWith(CLASS_SUFFIX)) {
+                    classes.put(toClassName(name), readFully(in));
+                }
+            }
+        }
+
+        try {
+            return new ByteArrayClassLoader(parent, classes)
+                    .loadClass(mainClass).asSubclass(Command.class);
+        } catch (final ClassNotFoundException | LinkageError
+                | ClassCastException e) {
+            // NB: fall back to recompiling
+            return null;
+        }
+    }
+
+    /**
+     * Create a hash of script code, language name and the versions of the
+     * bundles which compile and execute the script.
+     *
+     * @param script
+     *            the script code
+     * @param language
+     *            the script language
+     * @return hex encoded SHA-256 hash
+     */
+    public static String createHash(final String script,
+            final ScriptLanguage language) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(CompileCache.createKey(script, language)
+                    .getBytes(StandardCharsets.UTF_8));
+            final Class<?>[] bundleClasses = new Class<?>[] {
+                    CompiledCommandArchive.class, JavaEngine.class,
+                    Context.class };
+            for (final Class<?> c : bundleClasses) {
+                final Bundle bundle = FrameworkUtil.getBundle(c);
+                if (bundle != null) {
+                    digest.update(bundle.getVersion().toString()
+                            .getBytes(StandardCharsets.UTF_8));
+                }
+            }
+
+            final StringBuilder builder = new StringBuilder();
+            for (final byte b : digest.digest()) {
+                builder.append(String.format("%02x", b));
+            }
+            return builder.toString();
+        } catch (final NoSuchAlgorithmException e) {
+            // NB: every JVM is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /*
+     * Collect the byte code of the given class and all classes compiled
+     * together with it, e.g. inner or anonymous classes. Empty if the
+     * complete set of classes can not be found.
+     */
+    private static Map<String, byte[]> collectClasses(final Class<?> c)
+            throws IOException {
+        final Map<String, byte[]> classes = new HashMap<>();
+        final ClassLoader loader = c.getClassLoader();
+
+        if (loader instanceof ByteArrayClassLoader) {
+            classes.putAll(((ByteArrayClassLoader) loader).getClassBytes());
+            return classes;
+        }
+
+        final String path = c.getName().replace('.', '/') + CLASS_SUFFIX;
+        if (loader instanceof URLClassLoader) {
+            // JavaEngine builds a jar for the script, it contains exactly the
+            // classes compiled from it.
+            for (final URL url : ((URLClassLoader) loader).getURLs()) {
+                final File file = toFile(url);
+                if (file == null || !file.isFile()) {
+                    continue;
+                }
+                try (JarFile jar = new JarFile(file)) {
+                    if (jar.getEntry(path) == null) {
+                        continue;
+                    }
+                    final Enumeration<JarEntry> entries = jar.entries();
+                    while (entries.hasMoreElements()) {
+                        final JarEntry entry = entries.nextElement();
+                        if (entry.getName().endsWith(CLASS_SUFFIX)) {
+                            try (InputStream in = jar.getInputStream(entry)) {
+                                classes.put(toClassName(entry.getName()),
+                                        readFully(in));
+                            }
+                        }
+                    }
+                    return classes;
+                }
+            }
+        }
+
+        // NB: the class alone may reference inner or anonymous classes,
+        // which would fail to load after restoring the archive
+        return Collections.emptyMap();
+    }
+
+    private static File toFile(final URL url) {
+        if (!"file".equals(url.getProtocol())) {
+            return null;
+        }
+        try {
+            return new File(url.toURI());
+        } catch (final URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String toClassName(final String entryName) {
+        return entryName
+                .substring(0, entryName.length() - CLASS_SUFFIX.length())
+                .replace('/', '.');
+    }
+
+    private static byte[] readFully(final InputStream in) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[0x2000];
+        int len;
+        while ((len = in.read(buffer)) > 0) {
+            out.write(buffer, 0, len);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,328 @@
+package org.knime.scijava.scripting.base;
+
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+
+import org.scijava.module.ModuleItem;
+import org.scijava.script.ScriptInfo;
+import org.scijava.script.ScriptModule;
+import org.scijava.util.ConversionUtils;
+
+/**
+ * ScriptModule which compiles its script once and evaluates the compiled
+ * script on every run, if the script engine implements {@link Compilable}.
+ * Otherwise the script source is evaluated on every run, as done by
+ * {@link ScriptModule}.
+ * <p>
+ * Input values are put into the engine scope {@link Bindings} of the engine,
+ * which stay the same for all runs of the module.
+ * </p>
+ * <p>
+ * Values and resolution state of the items of the script are kept in
+ * reusable slots instead of the maps of the super class, so that setting and
+ * resolving items does not allocate map entries on every run.
+ * </p>
+ * <p>
+ * The engine is borrowed from the {@link ScriptEnginePool} on first use and
+ * should be given back via {@link #releaseEngine()} once the module is not
+ * needed anymore.
+ * </p>
+ */
+public class CompiledScriptModule extends ScriptModule {
+
+    /* engine borrowed from the pool, null until first use */
+    private ScriptEngine m_engine;
+
+    /* script compiled by the engine of this module, created on first run */
+    private CompiledScript m_compiledScript;
+
+    /* engine scope bindings, reused for every run */
+    private Bindings m_bindings;
+
+    private Object m_returnValue;
+
+    /* writers for the console output of the script, null for the default */
+    private Writer m_outputWriter;
+    private Writer m_errorWriter;
+
+    /*
+     * Items of the script and the non primitive types of the outputs, looked
+     * up on first run. ScriptInfo may parse the items on every call.
+     */
+    private ModuleItem<?>[] m_inputItems;
+    private ModuleItem<?>[] m_outputItems;
+    private Class<?>[] m_outputTypes;
+
+    /*
+     * Slot index per item name and the slots. Names which are not items of
+     * the script are stored by the super class.
+     */
+    private Map<String, Integer> m_slots;
+    private Object[] m_inputValues;
+    private Object[] m_outputValues;
+    private boolean[] m_resolved;
+
+    /**
+     * Constructor.
+     *
+     * @param info
+     *            info of the script to execute
+     */
+    public CompiledScriptModule(final ScriptInfo info) {
+        super(info);
+    }
+
+    @Override
+    public synchronized ScriptEngine getEngine() {
+        if (m_engine == null) {
+            m_engine = ScriptEnginePool.get().borrow(getLanguage());
+        }
+        return m_engine;
+    }
+
+    /**
+     * Give the engine of this module back to the {@link ScriptEnginePool}. The
+     * module stays usable, the next run borrows an engine again.
+     */
+    public synchronized void releaseEngine() {
+        if (m_engine != null) {
+            ScriptEnginePool.get().release(getLanguage(), m_engine);
+            m_engine = null;
+            m_compiledScript = null;
+            m_bindings = null;
+        }
+    }
+
+    @Override
+    public void setOutputWriter(final Writer output) {
+        super.setOutputWriter(output);
+        m_outputWriter = output;
+    }
+
+    @Override
+    public void setErrorWriter(final Writer error) {
+        super.setErrorWriter(error);
+        m_errorWriter = error;
+    }
+
+    @Override
+    public void run() {
+        final ScriptEngine engine = getEngine();
+        if (!(engine instanceof Compilable)) {
+            super.run();
+            return;
+        }
+
+        if (m_bindings == null) {
+            m_bindings = engine.getBindings(ScriptContext.ENGINE_SCOPE);
+        }
+        if (m_slots == null) {
+            initItems();
+        }
+
+        // populate input values
+        for (final ModuleItem<?> item : m_inputItems) {
+            final String name = item.getName();
+            m_bindings.put(name, getInput(name));
+        }
+
+        // NB: the engine is pooled, its writers are restored after the run
+        final ScriptContext context = engine.getContext();
+        final Writer outputWriter = context.getWriter();
+        final Writer errorWriter = context.getErrorWriter();
+        if (m_outputWriter != null) {
+            context.setWriter(m_outputWriter);
+        }
+        if (m_errorWriter != null) {
+            context.setErrorWriter(m_errorWriter);
+        }
+        try {
+            if (m_compiledScript == null) {
+                m_compiledScript =
+                        ((Compilable) engine).compile(getInfo().getReader());
+            }
+            m_returnValue = m_compiledScript.eval();
+        } catch (final ScriptException e) {
+            throw new IllegalStateException(
+                    "Evaluation of script failed: " + e.getMessage(), e);
+        } finally {
+            context.setWriter(outputWriter);
+            context.setErrorWriter(errorWriter);
+        }
+
+        // populate output values
+        for (int i = 0; i < m_outputItems.length; ++i) {
+            final ModuleItem<?> item = m_outputItems[i];
+            final String name = item.getName();
+            if (isResolved(name)) {
+                continue;
+            }
+
+            final Object value = RETURN_VALUE.equals(name) ? m_returnValue
+                    : m_bindings.get(name);
+            final Object decoded = getLanguage().decode(value);
+            setOutput(name, toOutputType(decoded, item, m_outputTypes[i]));
+            setResolved(name, true);
+        }
+    }
+
+    private void initItems() {
+        final List<ModuleItem<?>> inputs = new ArrayList<>();
+        for (final ModuleItem<?> item : getInfo().inputs()) {
+            inputs.add(item);
+        }
+        final List<ModuleItem<?>> outputs = new ArrayList<>();
+        for (final ModuleItem<?> item : getInfo().outputs()) {
+            outputs.add(item);
+        }
+
+        m_inputItems = inputs.toArray(new ModuleItem<?>[inputs.size()]);
+        m_outputItems = outputs.toArray(new ModuleItem<?>[outputs.size()]);
+        m_outputTypes = new Class<?>[m_outputItems.length];
+        for (int i = 0; i < m_outputItems.length; ++i) {
+            m_outputTypes[i] = ConversionUtils
+                    .getNonprimitiveType(m_outputItems[i].getType());
+        }
+
+        final Map<String, Integer> slots = new HashMap<>();
+        for (final ModuleItem<?> item : inputs) {
+            slots.putIfAbsent(item.getName(), slots.size());
+        }
+        for (final ModuleItem<?> item : outputs) {
+            slots.putIfAbsent(item.getName(), slots.size());
+        }
+        m_inputValues = new Object[slots.size()];
+        m_outputValues = new Object[slots.size()];
+        m_resolved = new boolean[slots.size()];
+        m_slots = slots;
+    }
+
+    /*
+     * Get the slot of an item, -1 for names which are not items of the
+     * script.
+     */
+    private int getSlot(final String name) {
+        if (m_slots == null) {
+            initItems();
+        }
+        final Integer slot = m_slots.get(name);
+        return (slot == null) ? -1 : slot;
+    }
+
+    @Override
+    public Object getInput(final String name) {
+        final int slot = getSlot(name);
+        return (slot < 0) ? super.getInput(name) : m_inputValues[slot];
+    }
+
+    @Override
+    public void setInput(final String name, final Object value) {
+        final int slot = getSlot(name);
+        if (slot < 0) {
+            super.setInput(name, value);
+        } else {
+            m_inputValues[slot] = value;
+        }
+    }
+
+    @Override
+    public Map<String, Object> getInputs() {
+        if (m_slots == null) {
+            initItems();
+        }
+        final Map<String, Object> inputs = new HashMap<>(super.getInputs());
+        for (final ModuleItem<?> item : m_inputItems) {
+            final Object value = m_inputValues[getSlot(item.getName())];
+            if (value != null) {
+                inputs.put(item.getName(), value);
+            }
+        }
+        return inputs;
+    }
+
+    @Override
+    public Object getOutput(final String name) {
+        final int slot = getSlot(name);
+        return (slot < 0) ? super.getOutput(name) : m_outputValues[slot];
+    }
+
+    @Override
+    public void setOutput(final String name, final Object value) {
+        final int slot = getSlot(name);
+        if (slot < 0) {
+            super.setOutput(name, value);
+        } else {
+            m_outputValues[slot] = value;
+        }
+    }
+
+    @Override
+    public Map<String, Object> getOutputs() {
+        if (m_slots == null) {
+            initItems();
+        }
+        final Map<String, Object> outputs = new HashMap<>(super.getOutputs());
+        for (final ModuleItem<?> item : m_outputItems) {
+            final Object value = m_outputValues[getSlot(item.getName())];
+            if (value != null) {
+                outputs.put(item.getName(), value);
+            }
+        }
+        return outputs;
+    }
+
+    @Override
+    public boolean isResolved(final String name) {
+        final int slot = getSlot(name);
+        return (slot < 0) ? super.isResolved(name) : m_resolved[slot];
+    }
+
+    @Override
+    public void setResolved(final String name, final boolean resolved) {
+        final int slot = getSlot(name);
+        if (slot < 0) {
+            super.setResolved(name, resolved);
+        } else {
+            m_resolved[slot] = resolved;
+        }
+    }
+
+    /*
+     * Convert a value to the type of an output. Values which already have the
+     * type are passed without looking up a converter.
+     */
+    private static Object toOutputType(final Object value,
+            final ModuleItem<?> item, final Class<?> type) {
+        if (value == null || type.isInstance(value)) {
+            return value;
+        }
+        if (ConversionUtils.canConvert(value, item.getType())) {
+            return ConversionUtils.convert(value, item.getType());
+        }
+        // NB: batch outputs may be declared with the type of their
+        // elements, their values are converted element by element.
+        if (value instanceof Iterable || value.getClass().isArray()) {
+            return value;
+        }
+        throw new IllegalStateException("Output \"" + item.getName()
+                + "\" returned a value of type " + value.getClass().getName()
+                + ", which can not be converted to the expected type "
+                + item.getType().getName() + ".");
+    }
+
+    @Override
+    public Object getReturnValue() {
+        return (m_compiledScript == null) ? super.getReturnValue()
+                : m_returnValue;
+    }
+}
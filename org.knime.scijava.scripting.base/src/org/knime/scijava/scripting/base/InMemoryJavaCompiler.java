@@ -0,0 +1,242 @@
+package org.knime.scijava.scripting.base;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.script.ScriptException;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.JavaFileObject.Kind;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import com.sun.tools.javac.api.JavacTool;
+
+/**
+ * Compiles Java source code without touching the disk. The source is read
+ * from a String and the class files are written to byte arrays, which can then
+ * be defined by a {@link ByteArrayClassLoader}.
+ */
+public class InMemoryJavaCompiler {
+
+    private static final Pattern PACKAGE_PATTERN = Pattern.compile(
+            "^\\s*package\\s+([\\w.]+)\\s*;", Pattern.MULTILINE);
+
+    private static final Pattern CLASS_PATTERN = Pattern.compile(
+            "^\\s*public\\s+(?:(?:abstract|final|strictfp)\\s+)*"
+                    + "class\\s+(\\w+)",
+            Pattern.MULTILINE);
+
+    private final JavaCompiler m_compiler;
+    private final List<String> m_options;
+
+    /**
+     * Constructor.
+     *
+     * @param classPath
+     *            the urls of the jars and directories to compile against
+     */
+    public InMemoryJavaCompiler(final Iterable<URL> classPath) {
+        final JavaCompiler systemCompiler =
+                ToolProvider.getSystemJavaCompiler();
+        // NB: KNIME runs on a JRE, use javac of the bundled tools.jar instead
+        m_compiler = (systemCompiler == null) ? JavacTool.create()
+                : systemCompiler;
+
+        final StringBuilder path = new StringBuilder();
+        for (final URL url : classPath) {
+            final String file = toPath(url);
+            if (file != null) {
+                if (path.length() > 0) {
+                    path.append(File.pathSeparatorChar);
+                }
+                path.append(file);
+            }
+        }
+
+        final List<String> options = new ArrayList<>();
+        options.add("-g");
+        // NB: annotation processors would try to write resources to disk
+        options.add("-proc:none");
+        options.add("-classpath");
+        options.add(path.toString());
+        m_options = Collections.unmodifiableList(options);
+    }
+
+    /**
+     * Find the binary name of the public top level class declared in the
+     * given source.
+     *
+     * @param source
+     *            Java source code
+     * @return the class name or <code>null</code> if the source does not
+     *         declare a public class.
+     */
+    public static String findClassName(final String source) {
+        final Matcher classMatcher = CLASS_PATTERN.matcher(source);
+        if (!classMatcher.find()) {
+            return null;
+        }
+
+        final Matcher packageMatcher = PACKAGE_PATTERN.matcher(source);
+        if (packageMatcher.find()) {
+            return packageMatcher.group(1) + "." + classMatcher.group(1);
+        }
+        return classMatcher.group(1);
+    }
+
+    /**
+     * Compile the given source.
+     *
+     * @param className
+     *            binary name of the public class declared in the source
+     * @param source
+     *            Java source code
+     * @param errorWriter
+     *            writer to output compiler errors to
+     * @return map of binary class name to class file contents of all classes
+     *         declared in the source
+     * @throws ScriptException
+     *             if the source could not be compiled
+     */
+    public Map<String, byte[]> compile(final String className,
+            final String source, final Writer errorWriter)
+            throws ScriptException {
+        final StandardJavaFileManager standardManager =
+                m_compiler.getStandardFileManager(null, null,
+                        StandardCharsets.UTF_8);
+        final ClassOutputManager manager =
+                new ClassOutputManager(standardManager);
+
+        final JavaFileObject sourceFile =
+                new SourceFileObject(className, source);
+        final Boolean success = m_compiler
+                .getTask(errorWriter, manager, null, m_options, null,
+                        Collections.singletonList(sourceFile))
+                .call();
+
+        try {
+            manager.close();
+        } catch (final IOException e) {
+            // NB: nothing was written to disk
+        }
+
+        if (!Boolean.TRUE.equals(success)) {
+            throw new ScriptException(
+                    "Compilation of " + className + " failed.");
+        }
+        return manager.getClasses();
+    }
+
+    private static String toPath(final URL url) {
+        if (!"file".equals(url.getProtocol())) {
+            return null;
+        }
+        try {
+            return new File(url.toURI()).getAbsolutePath();
+        } catch (final URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static URI createUri(final String className, final Kind kind) {
+        return URI.create("memory:///" + className.replace('.', '/')
+                + kind.extension);
+    }
+
+    /*
+     * Source file with its contents held in memory.
+     */
+    private static class SourceFileObject extends SimpleJavaFileObject {
+
+        private final String m_source;
+
+        public SourceFileObject(final String className, final String source) {
+            super(createUri(className, Kind.SOURCE), Kind.SOURCE);
+            m_source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(
+                final boolean ignoreEncodingErrors) {
+            return m_source;
+        }
+    }
+
+    /*
+     * Class file which is written to a byte array.
+     */
+    private static class ClassFileObject extends SimpleJavaFileObject {
+
+        private final ByteArrayOutputStream m_bytes =
+                new ByteArrayOutputStream();
+
+        public ClassFileObject(final String className) {
+            super(createUri(className, Kind.CLASS), Kind.CLASS);
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            return m_bytes;
+        }
+
+        public byte[] getBytes() {
+            return m_bytes.toByteArray();
+        }
+    }
+
+    /*
+     * File manager which reads classes to compile against from the standard
+     * file manager, but keeps the class output in memory.
+     */
+    private static class ClassOutputManager
+            extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+        private final Map<String, ClassFileObject> m_classes = new HashMap<>();
+
+        public ClassOutputManager(final StandardJavaFileManager manager) {
+            super(manager);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(
+                final JavaFileManager.Location location,
+                final String className, final Kind kind,
+                final FileObject sibling) throws IOException {
+            if (kind != Kind.CLASS) {
+                return super.getJavaFileForOutput(location, className, kind,
+                        sibling);
+            }
+            final ClassFileObject file = new ClassFileObject(className);
+            m_classes.put(className, file);
+            return file;
+        }
+
+        public Map<String, byte[]> getClasses() {
+            final Map<String, byte[]> classes = new HashMap<>();
+            for (final Map.Entry<String, ClassFileObject> entry : m_classes
+                    .entrySet()) {
+                classes.put(entry.getKey(), entry.getValue().getBytes());
+            }
+            return classes;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package org.knime.scijava.scripting.base;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.stream.Stream;
+
+/**
+ * {@link URLClassLoader} which indexes the packages contained in its URLs
+ * once on creation. Lookups of classes and resources in packages which none
+ * of the URLs contain fail immediately, instead of searching every URL.
+ * <p>
+ * Only jar files and directories given as <code>file:</code> URLs can be
+ * indexed. If any other URL is given, all lookups search the URLs.
+ * </p>
+ */
+public class IndexedUrlClassLoader extends URLClassLoader {
+
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
+    /* directories of all resources in the URLs, null if not indexed */
+    private final Set<String> m_packages;
+
+    /**
+     * Constructor.
+     *
+     * @param urls
+     *            the URLs to load classes and resources from
+     * @param parent
+     *            the parent class loader
+     */
+    public IndexedUrlClassLoader(final URL[] urls, final ClassLoader parent) {
+        super(urls, parent);
+        m_packages = createIndex(urls);
+    }
+
+    @Override
+    protected Class<?> findClass(final String name)
+            throws ClassNotFoundException {
+        final int dot = name.lastIndexOf('.');
+        final String packageName =
+                (dot < 0) ? "" : name.substring(0, dot).replace('.', '/');
+        if (!isIndexed(packageName)) {
+            throw new ClassNotFoundException(name);
+        }
+        return super.findClass(name);
+    }
+
+    @Override
+    public URL findResource(final String name) {
+        if (!isIndexed(getPackageName(name))) {
+            return null;
+        }
+        return super.findResource(name);
+    }
+
+    @Override
+    public Enumeration<URL> findResources(final String name)
+            throws IOException {
+        if (!isIndexed(getPackageName(name))) {
+            return Collections.emptyEnumeration();
+        }
+        return super.findResources(name);
+    }
+
+    /*
+     * Whether the package may be contained in the URLs.
+     */
+    private boolean isIndexed(final String packageName) {
+        return m_packages == null || m_packages.contains(packageName);
+    }
+
+    private static String getPackageName(final String resourceName) {
+        final String name = resourceName.startsWith("/")
+                ? resourceName.substring(1) : resourceName;
+        final int slash = name.lastIndexOf('/');
+        return (slash < 0) ? "" : name.substring(0, slash);
+    }
+
+    /*
+     * Collect the directories of all resources in the given jar files and
+     * directories. Returns null if any of the URLs can not be indexed.
+     */
+    static Set<String> createIndex(final URL[] urls) {
+        final Set<String> packages = new HashSet<>();
+        for (final URL url : urls) {
+            if (!"file".equals(url.getProtocol())) {
+                return null;
+            }
+            try {
+                final File file = new File(url.toURI());
+                if (file.isDirectory()) {
+                    indexDirectory(file.toPath(), packages);
+                } else if (file.isFile() && !indexJar(file, packages)) {
+                    return null;
+                }
+            } catch (final IOException | URISyntaxException
+                    | IllegalArgumentException e) {
+                // NB: fall back to searching all URLs
+                return null;
+            }
+        }
+        return packages;
+    }
+
+    /*
+     * Index the jar file. Returns false if the manifest of the jar adds
+     * further URLs with a Class-Path, which are not indexed.
+     */
+    private static boolean indexJar(final File file,
+            final Set<String> packages) throws IOException {
+        try (final JarFile jar = new JarFile(file)) {
+            final Manifest manifest = jar.getManifest();
+            if (manifest != null && manifest.getMainAttributes()
+                    .containsKey(Attributes.Name.CLASS_PATH)) {
+                return false;
+            }
+
+            final Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                final JarEntry entry = entries.nextElement();
+                if (!entry.isDirectory()) {
+                    packages.add(getPackageName(entry.getName()));
+                }
+            }
+        }
+        return true;
+    }
+
+    private static void indexDirectory(final Path root,
+            final Set<String> packages) throws IOException {
+        try (final Stream<Path> files = Files.walk(root)) {
+            files.filter(Files::isRegularFile).forEach(file -> {
+                final Path parent = root.relativize(file).getParent();
+                packages.add((parent == null) ? ""
+                        : parent.toString().replace(File.separatorChar, '/'));
+            });
+        }
+    }
+}
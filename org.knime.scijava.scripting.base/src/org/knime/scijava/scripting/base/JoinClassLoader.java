@@ -4,8 +4,19 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.nio.ByteBuffer;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Enumeration;
-import java.util.Vector;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.knime.scijava.core.ResourceAwareClassLoader;
 
 /**
  * A class loader that combines multiple class loaders into one.<br>
@@ -16,15 +27,83 @@ import java.util.Vector;
  * www.source-code.biz<br>
  * License: LGPL, http://www.gnu.org/licenses/lgpl.html<br>
  * Please contact the author if you need another license.
+ * <p>
+ * The packages of delegates with known contents, i.e. URL class loaders and
+ * the bundle class loader, are indexed once on creation. A resource is only
+ * looked up in the delegates which contain its package and in the delegates
+ * which could not be indexed, always in the order of the delegates. Resources
+ * which the parents of the indexed delegates provide are expected to be
+ * found through the parent of this class loader. A bounded number of lookups
+ * which did not find anything is cached, the delegates are therefore
+ * expected not to change the resources they provide. The class loader is
+ * parallel capable, classes with different names may be loaded
+ * concurrently.
+ * </p>
  */
 public class JoinClassLoader extends ClassLoader {
 
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
+    /* maximum number of cached names which were not found */
+    private static final int MAX_MISSING_RESOURCES = 10000;
+
     private ClassLoader[] delegateClassLoaders;
 
+    /* cached resource lookups which did not find anything */
+    private final Map<String, Boolean> missingResources =
+            Collections.synchronizedMap(
+                    new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+                        private static final long serialVersionUID = 1L;
+
+                        @Override
+                        protected boolean removeEldestEntry(
+                                Map.Entry<String, Boolean> eldest) {
+                            return size() > MAX_MISSING_RESOURCES;
+                        }
+                    });
+
+    /*
+     * delegates which may provide resources of a package, in the order of
+     * the delegates, built once on creation
+     */
+    private final Map<String, ClassLoader[]> packageIndex;
+
+    /* delegates which could not be indexed, asked for every package */
+    private final ClassLoader[] unindexedDelegates;
+
     public JoinClassLoader(ClassLoader parent,
             ClassLoader... delegateClassLoaders) {
         super(parent);
         this.delegateClassLoaders = delegateClassLoaders;
+
+        List<Set<String>> packages = new ArrayList<>();
+        Set<String> allPackages = new HashSet<>();
+        List<ClassLoader> unindexed = new ArrayList<>();
+        for (ClassLoader delegate : delegateClassLoaders) {
+            Set<String> delegatePackages = createIndex(delegate);
+            packages.add(delegatePackages);
+            if (delegatePackages == null) {
+                unindexed.add(delegate);
+            } else {
+                allPackages.addAll(delegatePackages);
+            }
+        }
+        unindexedDelegates = unindexed.toArray(new ClassLoader[0]);
+
+        packageIndex = new HashMap<>();
+        for (String packageName : allPackages) {
+            List<ClassLoader> delegates = new ArrayList<>();
+            for (int i = 0; i < delegateClassLoaders.length; i++) {
+                if (packages.get(i) == null
+                        || packages.get(i).contains(packageName)) {
+                    delegates.add(delegateClassLoaders[i]);
+                }
+            }
+            packageIndex.put(packageName,
+                    delegates.toArray(new ClassLoader[delegates.size()]));
+        }
     }
 
     @Override
@@ -33,18 +112,26 @@ public class JoinClassLoader extends ClassLoader {
         // delegateClassLoaders here, but we have to load the class from the
         // byte code ourselves, because we need it to be associated with our
         // class loader.
-        String path = name.replace('.', '/') + ".class";
-        URL url = findResource(path);
-        if (url == null) {
-            throw new ClassNotFoundException(name);
-        }
-        ByteBuffer byteCode;
-        try {
-            byteCode = loadResource(url);
-        } catch (IOException e) {
-            throw new ClassNotFoundException(name, e);
+        synchronized (getClassLoadingLock(name)) {
+            // NB: the class may have been defined by a direct call of this
+            // method, defining it again would fail.
+            Class<?> loaded = findLoadedClass(name);
+            if (loaded != null) {
+                return loaded;
+            }
+            String path = name.replace('.', '/') + ".class";
+            URL url = findResource(path);
+            if (url == null) {
+                throw new ClassNotFoundException(name);
+            }
+            ByteBuffer byteCode;
+            try {
+                byteCode = loadResource(url);
+            } catch (IOException e) {
+                throw new ClassNotFoundException(name, e);
+            }
+            return defineClass(name, byteCode, null);
         }
-        return defineClass(name, byteCode, null);
     }
 
     private ByteBuffer loadResource(URL url) throws IOException {
@@ -76,24 +163,66 @@ public class JoinClassLoader extends ClassLoader {
 
     @Override
     protected URL findResource(String name) {
-        for (ClassLoader delegate : delegateClassLoaders) {
+        if (missingResources.get(name) != null) {
+            return null;
+        }
+        for (ClassLoader delegate : getDelegates(name)) {
             URL resource = delegate.getResource(name);
-            if (resource != null)
+            if (resource != null) {
                 return resource;
+            }
         }
+        missingResources.put(name, Boolean.TRUE);
         return null;
     }
 
     @Override
     protected Enumeration<URL> findResources(String name) throws IOException {
-        Vector<URL> vector = new Vector<>();
-        for (ClassLoader delegate : delegateClassLoaders) {
+        List<URL> resources = new ArrayList<>();
+        for (ClassLoader delegate : getDelegates(name)) {
             Enumeration<URL> enumeration = delegate.getResources(name);
             while (enumeration.hasMoreElements()) {
-                vector.add(enumeration.nextElement());
+                resources.add(enumeration.nextElement());
             }
         }
-        return vector.elements();
+        return Collections.enumeration(resources);
+    }
+
+    /*
+     * The delegates which may provide the resource, in the order of the
+     * delegates.
+     */
+    private ClassLoader[] getDelegates(String resourceName) {
+        ClassLoader[] delegates =
+                packageIndex.get(getPackageName(resourceName));
+        return (delegates == null) ? unindexedDelegates : delegates;
+    }
+
+    /*
+     * The packages of a delegate whose contents are known, null if the
+     * delegate can not be indexed.
+     */
+    private static Set<String> createIndex(ClassLoader delegate) {
+        if (delegate instanceof URLClassLoader) {
+            return IndexedUrlClassLoader
+                    .createIndex(((URLClassLoader) delegate).getURLs());
+        }
+        if (delegate instanceof ResourceAwareClassLoader) {
+            Collection<URL> urls =
+                    ((ResourceAwareClassLoader) delegate).getBundleUrls();
+            return IndexedUrlClassLoader
+                    .createIndex(urls.toArray(new URL[urls.size()]));
+        }
+        return null;
+    }
+
+    /*
+     * The directory of a resource, e.g. "org/scijava" for
+     * "org/scijava/Context.class".
+     */
+    private static String getPackageName(String resourceName) {
+        int slash = resourceName.lastIndexOf('/');
+        return (slash < 0) ? "" : resourceName.substring(0, slash);
     }
 
 }
\ No newline at end of file
@@ -16,11 +16,9 @@ import org.knime.scijava.core.SubContext;
 import org.knime.scijava.core.pluginindex.ReusablePluginIndex;
 import org.scijava.Context;
 import org.scijava.command.CommandService;
-import org.scijava.display.DisplayPostprocessor;
 import org.scijava.object.ObjectService;
 import org.scijava.plugin.DefaultPluginFinder;
 import org.scijava.plugin.PluginIndex;
-import org.scijava.plugin.PluginService;
 import org.scijava.prefs.PrefService;
 import org.scijava.service.Service;
 import org.scijava.ui.UIService;
@@ -48,6 +46,9 @@ public class KNIMESciJavaGateway {
      */
     private Context m_globalContext;
 
+    /* plugin index of the subcontexts, see SubContextPluginIndex */
+    private PluginIndex m_subContextPluginIndex;
+
     /** a list of services which need to be present in newly created contexts */
     protected static List<Class<? extends Service>> requiredServices = Arrays
             .<Class<? extends Service>> asList(InputDataRowService.class,
@@ -66,8 +67,9 @@ public class KNIMESciJavaGateway {
         m_classLoader = new ResourceAwareClassLoader(
                 getClass().getClassLoader(), getClass());
 
-        m_pluginIndex = new ReusablePluginIndex(
-                new DefaultPluginFinder(m_classLoader));
+        // NB: the plugin annotation indices are read from an on-disk cache
+        m_pluginIndex = new ReusablePluginIndex(new DefaultPluginFinder(
+                PluginIndexCache.wrap(m_classLoader)));
     }
 
     /**
@@ -90,18 +92,24 @@ public class KNIMESciJavaGateway {
      * @return the created context
      */
     public Context createSubContext() {
-        final Context context = new SubContext(getGlobalContext(),
-                requiredServices,
-                new PluginIndex(new DefaultPluginFinder(m_classLoader)));
-
-        // cleanup unwanted services
-        final PluginService plugins = context.getService(PluginService.class);
-        plugins.removePlugin(plugins.getPlugin(DisplayPostprocessor.class));
+        // NB: creating the global context discovers the shared plugins
+        final Context global = getGlobalContext();
+        return new SubContext(global, requiredServices,
+                getSubContextPluginIndex());
+    }
 
-        return context;
+    /*
+     * The plugin index shared by all subcontexts, built once after the global
+     * context discovered the plugins.
+     */
+    private synchronized PluginIndex getSubContextPluginIndex() {
+        if (m_subContextPluginIndex == null) {
+            m_subContextPluginIndex = new SubContextPluginIndex(m_pluginIndex);
+        }
+        return m_subContextPluginIndex;
     }
 
-    private Context getGlobalContext() {
+    private synchronized Context getGlobalContext() {
         if (m_globalContext == null) {
             m_globalContext = new Context(m_pluginIndex);
 
@@ -0,0 +1,189 @@
+package org.knime.scijava.scripting.base;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.scijava.AbstractContextual;
+import org.scijava.Context;
+import org.scijava.module.Module;
+import org.scijava.module.ModuleException;
+import org.scijava.module.ModuleInfo;
+import org.scijava.module.ModuleItem;
+import org.scijava.module.process.DebugPostprocessor;
+import org.scijava.module.process.DebugPreprocessor;
+import org.scijava.module.process.LoadInputsPreprocessor;
+import org.scijava.module.process.ModuleProcessor;
+import org.scijava.module.process.PostprocessorPlugin;
+import org.scijava.module.process.PreprocessorPlugin;
+import org.scijava.module.process.SaveInputsPreprocessor;
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.PluginService;
+import org.scijava.service.Service;
+import org.scijava.widget.InputHarvester;
+
+/**
+ * Plan for executing a module many times directly on the calling thread.
+ * <p>
+ * <code>ModuleService.run(module, true)</code> instantiates all pre- and
+ * postprocessor plugins, publishes module events and hands the execution to
+ * another thread for every single run. This plan instead creates the
+ * processors once and keeps inputs which do not depend on the row (services
+ * and the context) resolved between runs. Processors which only persist,
+ * harvest or log input values are left out, since they have no effect in a
+ * node. The {@link LoadInputsPreprocessor} is kept, so inputs with persisted
+ * or default values are loaded as with <code>ModuleService.run</code>.
+ * </p>
+ * <p>
+ * Callers which set inputs themselves, e.g. from the columns of a row, mark
+ * them with {@link #bind(String)}. Once every input which depends on the row
+ * is bound, the preprocessors need not run at all, see
+ * {@link #isPreprocessing()}.
+ * </p>
+ */
+public class ModuleBindingPlan extends AbstractContextual {
+
+    @Parameter
+    private PluginService m_pluginService;
+
+    private final List<PreprocessorPlugin> m_preprocessors;
+    private final List<PostprocessorPlugin> m_postprocessors;
+
+    /* inputs which are resolved once and kept for all runs */
+    private final List<String> m_staticInputs = new ArrayList<>();
+
+    /* inputs which depend on the row */
+    private final List<String> m_rowInputs = new ArrayList<>();
+
+    /* inputs which are set by the caller before every run */
+    private final Set<String> m_boundInputs = new HashSet<>();
+
+    /**
+     * Constructor.
+     *
+     * @param context
+     *            context to create the processors in
+     * @param info
+     *            info of the modules to execute with this plan
+     */
+    public ModuleBindingPlan(final Context context, final ModuleInfo info) {
+        setContext(context);
+
+        m_preprocessors = Collections.unmodifiableList(filter(m_pluginService
+                .createInstancesOfType(PreprocessorPlugin.class)));
+        m_postprocessors = Collections.unmodifiableList(filter(m_pluginService
+                .createInstancesOfType(PostprocessorPlugin.class)));
+
+        for (final ModuleItem<?> input : info.inputs()) {
+            final Class<?> type = input.getType();
+            if (Service.class.isAssignableFrom(type)
+                    || Context.class.isAssignableFrom(type)) {
+                m_staticInputs.add(input.getName());
+            } else {
+                m_rowInputs.add(input.getName());
+            }
+        }
+    }
+
+    /**
+     * Mark an input as set by the caller before every run.
+     *
+     * @param input
+     *            name of the input
+     */
+    public void bind(final String input) {
+        m_boundInputs.add(input);
+    }
+
+    /**
+     * @return whether the preprocessors need to run to resolve inputs which
+     *         are not bound by the caller
+     */
+    public boolean isPreprocessing() {
+        return !m_boundInputs.containsAll(m_rowInputs);
+    }
+
+    /**
+     * Run the module on the calling thread. Preprocessors resolve all inputs
+     * which are not resolved yet, postprocessors consume the outputs.
+     *
+     * @param module
+     *            the module to run
+     * @throws ModuleException
+     *             if a preprocessor canceled the execution
+     */
+    public void run(final Module module) throws ModuleException {
+        preProcess(module);
+        module.run();
+        postProcess(module);
+    }
+
+    /**
+     * Run the preprocessors of this plan on the module. Inputs which are
+     * already resolved are left as they are.
+     *
+     * @param module
+     *            the module to preprocess
+     * @throws ModuleException
+     *             if a preprocessor canceled the execution
+     */
+    public void preProcess(final Module module) throws ModuleException {
+        for (final PreprocessorPlugin preprocessor : m_preprocessors) {
+            preprocessor.process(module);
+            if (preprocessor.isCanceled()) {
+                throw new ModuleException(
+                        "Module execution canceled by preprocessor: "
+                                + preprocessor.getCancelReason());
+            }
+        }
+    }
+
+    /**
+     * Run the postprocessors of this plan on the module.
+     *
+     * @param module
+     *            the module to postprocess
+     */
+    public void postProcess(final Module module) {
+        for (final PostprocessorPlugin postprocessor : m_postprocessors) {
+            postprocessor.process(module);
+        }
+    }
+
+    /**
+     * Prepare the module for the next run. Outputs and inputs which depend on
+     * the row are unresolved, services stay resolved.
+     *
+     * @param module
+     *            the module to reset
+     * @param product
+     *            the compile product the module was created from
+     */
+    public void reset(final Module module, final CompileProductHelper product) {
+        product.resetModule(module);
+        for (final String input : m_staticInputs) {
+            module.setResolved(input, true);
+        }
+    }
+
+    /*
+     * Remove processors which do not contribute to the execution of a module
+     * in a node.
+     */
+    private static <P extends ModuleProcessor> List<P> filter(
+            final List<P> processors) {
+        final List<P> filtered = new ArrayList<>(processors.size());
+        for (final P processor : processors) {
+            if (processor instanceof SaveInputsPreprocessor
+                    || processor instanceof DebugPreprocessor
+                    || processor instanceof DebugPostprocessor
+                    || processor instanceof InputHarvester) {
+                continue;
+            }
+            filtered.add(processor);
+        }
+        return filtered;
+    }
+}
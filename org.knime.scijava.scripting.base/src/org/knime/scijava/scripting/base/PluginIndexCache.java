@@ -0,0 +1,203 @@
+package org.knime.scijava.scripting.base;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.FrameworkUtil;
+import org.scijava.plugin.DefaultPluginFinder;
+
+/**
+ * On-disk cache of the plugin annotation indices of all bundles.
+ * <p>
+ * Discovering plugins with a {@link DefaultPluginFinder} looks up the
+ * annotation index in every bundle, which takes seconds with many bundles
+ * installed. The first discovery copies the found indices into the data area
+ * of this bundle. Later discoveries read the copies, as long as no bundle
+ * was installed, updated or removed: the cache is keyed by the symbolic
+ * names, versions and modification times of all installed bundles.
+ * </p>
+ */
+public class PluginIndexCache {
+
+    /* resource containing the annotation index of the plugins */
+    private static final String INDEX_RESOURCE =
+            "META-INF/json/org.scijava.plugin.Plugin";
+
+    /* increment if the layout of the cache changes */
+    private static final String CACHE_FORMAT = "1";
+
+    private static final String CACHE_ROOT = "plugin-index";
+
+    /* infix of cache directories which are still being written */
+    private static final String TEMP_INFIX = ".tmp";
+
+    private PluginIndexCache() {
+        // NB Utility class
+    }
+
+    /**
+     * Wrap a class loader so that the plugin annotation indices are read from
+     * the cache. The cache is created if it does not exist yet. If the cache
+     * can not be used, e.g. outside of an OSGi framework, the given class
+     * loader is returned.
+     *
+     * @param classLoader
+     *            class loader which provides the plugins
+     * @return class loader for a {@link DefaultPluginFinder}
+     */
+    public static ClassLoader wrap(final ClassLoader classLoader) {
+        try {
+            final Bundle bundle =
+                    FrameworkUtil.getBundle(PluginIndexCache.class);
+            final BundleContext bundleContext =
+                    (bundle == null) ? null : bundle.getBundleContext();
+            final File root = (bundleContext == null) ? null
+                    : bundleContext.getDataFile(CACHE_ROOT);
+            if (root == null) {
+                return classLoader;
+            }
+
+            final File cache = new File(root, createKey(bundleContext));
+            if (!cache.isDirectory()) {
+                root.mkdirs();
+                writeCache(classLoader, root, cache);
+            }
+
+            final File[] files = cache.listFiles();
+            if (files == null) {
+                return classLoader;
+            }
+            Arrays.sort(files);
+            final List<URL> urls = new ArrayList<>(files.length);
+            for (final File file : files) {
+                urls.add(file.toURI().toURL());
+            }
+            return new CachedIndexClassLoader(classLoader, urls);
+        } catch (final IOException | NoSuchAlgorithmException e) {
+            // NB: discover the plugins without the cache
+            return classLoader;
+        }
+    }
+
+    /*
+     * Hash of the format of the cache and the identity of all installed
+     * bundles.
+     */
+    private static String createKey(final BundleContext bundleContext)
+            throws NoSuchAlgorithmException {
+        final List<String> bundles = new ArrayList<>();
+        for (final Bundle bundle : bundleContext.getBundles()) {
+            bundles.add(bundle.getSymbolicName() + "_" + bundle.getVersion()
+                    + "_" + bundle.getLastModified());
+        }
+        Collections.sort(bundles);
+
+        final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+        digest.update(CACHE_FORMAT.getBytes(StandardCharsets.UTF_8));
+        for (final String id : bundles) {
+            digest.update(id.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        }
+
+        final StringBuilder key = new StringBuilder();
+        for (final byte b : digest.digest()) {
+            key.append(String.format("%02x", b));
+        }
+        return key.toString();
+    }
+
+    /*
+     * Copy the index of every bundle into a numbered file of a new cache
+     * directory. Completed caches of other bundle configurations are
+     * removed, caches which another process is still writing are kept.
+     */
+    private static void writeCache(final ClassLoader classLoader,
+            final File root, final File cache) throws IOException {
+        final File[] outdated = root.listFiles();
+        if (outdated != null) {
+            for (final File dir : outdated) {
+                if (dir.isDirectory() && !dir.equals(cache)
+                        && !dir.getName().contains(TEMP_INFIX)) {
+                    delete(dir);
+                }
+            }
+        }
+
+        final File temp = Files.createTempDirectory(root.toPath(),
+                cache.getName() + TEMP_INFIX).toFile();
+        try {
+            final Enumeration<URL> indices =
+                    classLoader.getResources(INDEX_RESOURCE);
+            int i = 0;
+            while (indices.hasMoreElements()) {
+                final File file =
+                        new File(temp, String.format("%05d.json", i++));
+                try (final InputStream in =
+                        indices.nextElement().openStream()) {
+                    Files.copy(in, file.toPath());
+                }
+            }
+            // NB: another process may have created the cache concurrently
+            Files.move(temp.toPath(), cache.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException e) {
+            if (!cache.isDirectory()) {
+                throw e;
+            }
+        } finally {
+            delete(temp);
+        }
+    }
+
+    private static void delete(final File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (final File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    /*
+     * Class loader which serves the cached annotation indices and delegates
+     * everything else to its parent.
+     */
+    private static class CachedIndexClassLoader extends ClassLoader {
+
+        static {
+            ClassLoader.registerAsParallelCapable();
+        }
+
+        private final List<URL> m_indices;
+
+        public CachedIndexClassLoader(final ClassLoader parent,
+                final List<URL> indices) {
+            super(parent);
+            m_indices = Collections.unmodifiableList(indices);
+        }
+
+        @Override
+        public Enumeration<URL> getResources(final String name)
+                throws IOException {
+            if (INDEX_RESOURCE.equals(name)) {
+                return Collections.enumeration(m_indices);
+            }
+            return super.getResources(name);
+        }
+    }
+}
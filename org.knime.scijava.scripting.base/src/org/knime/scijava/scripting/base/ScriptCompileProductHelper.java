@@ -1,7 +1,10 @@
 package org.knime.scijava.scripting.base;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.script.Bindings;
 import javax.script.ScriptContext;
-import javax.script.ScriptEngine;
 
 import org.scijava.Context;
 import org.scijava.module.Module;
@@ -18,6 +21,10 @@ public class ScriptCompileProductHelper implements CompileProductHelper {
     private Iterable<ModuleItem<?>> m_inputs = null;
     private Context m_context;
 
+    /* names of inputs and outputs, to reset modules without copying maps */
+    private volatile String[] m_inputNames;
+    private volatile String[] m_outputNames;
+
     public ScriptCompileProductHelper(final ScriptInfo info, Context context) {
         m_info = info;
         m_context = context;
@@ -42,26 +49,61 @@ public class ScriptCompileProductHelper implements CompileProductHelper {
     @Override
     public Module createModule(final ScriptLanguage language)
             throws ModuleException {
-        final ScriptModule module = m_info.createModule();
+        return createModule(language, m_context);
+    }
+
+    @Override
+    public Module createModule(final ScriptLanguage language,
+            final Context context) throws ModuleException {
+        // NB: compiles the script once per module if the engine supports it
+        final ScriptModule module = new CompiledScriptModule(m_info);
 
         // use the currently selected language to execute the script
         module.setLanguage(language);
-        m_context.inject(module);
+        context.inject(module);
 
         return module;
     }
 
     @Override
     public void resetModule(Module m) {
-        final ScriptEngine scriptEngine = ((ScriptModule) m).getEngine();
+        if (m_outputNames == null) {
+            // NB: concurrent initialization results in equal arrays, the
+            // volatile write of the outputs publishes the inputs
+            m_inputNames = getNames(inputs());
+            m_outputNames = getNames(m_info.outputs());
+        }
+
+        final Bindings bindings = ((ScriptModule) m).getEngine()
+                .getBindings(ScriptContext.ENGINE_SCOPE);
 
-        for (final String input : m.getInputs().keySet()) {
+        for (final String input : m_inputNames) {
             m.setResolved(input, false);
         }
-        for (final String output : m.getOutputs().keySet()) {
+        // NB: overwrite the outputs instead of removing them, so that the
+        // next run reuses the entries of the bindings
+        for (final String output : m_outputNames) {
             m.setResolved(output, false);
-            scriptEngine.getBindings(ScriptContext.ENGINE_SCOPE).remove(output);
+            bindings.put(output, null);
+        }
+    }
+
+    @Override
+    public void releaseModule(final Module m) {
+        if (m instanceof CompiledScriptModule) {
+            ((CompiledScriptModule) m).releaseEngine();
+        }
+    }
+
+    /*
+     * Collect the names of the given items.
+     */
+    private static String[] getNames(final Iterable<ModuleItem<?>> items) {
+        final List<String> names = new ArrayList<>();
+        for (final ModuleItem<?> item : items) {
+            names.add(item.getName());
         }
+        return names.toArray(new String[names.size()]);
     }
 
 }
@@ -0,0 +1,301 @@
+package org.knime.scijava.scripting.base;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.script.Bindings;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.SimpleScriptContext;
+
+import org.knime.scijava.core.TempClassLoader;
+import org.scijava.script.ScriptLanguage;
+
+/**
+ * JVM wide pool of idle {@link ScriptEngine}s per {@link ScriptLanguage}
+ * instance.
+ * <p>
+ * Creating an engine for languages like Jython takes several seconds. Engines
+ * are therefore returned to the pool once a module does not need them anymore
+ * and can be created in advance on a daemon thread via
+ * {@link #warmUp(Collection, ClassLoader)}. Engines which were not borrowed
+ * for longer than the idle timeout are evicted.
+ * </p>
+ * <p>
+ * Only engines which keep the state of scripts in their
+ * {@link ScriptContext} are pooled, they are given a fresh context when they
+ * are released, so that no functions, variables or values leak to the next
+ * module. The languages of these engines are configured via
+ * {@link #LANGUAGES_PROPERTY}. Engines of other languages, e.g. JRuby, keep
+ * interpreter state outside of their context and are discarded on release.
+ * </p>
+ */
+public class ScriptEnginePool {
+
+    /** System property to configure the maximum idle engines per language */
+    public static final String SIZE_PROPERTY =
+            "knime.scijava.scripting.enginepool.size";
+
+    /** System property to configure the idle timeout in seconds */
+    public static final String IDLE_TIMEOUT_PROPERTY =
+            "knime.scijava.scripting.enginepool.idletimeout";
+
+    /**
+     * System property with the comma separated names of the languages whose
+     * engines are pooled
+     */
+    public static final String LANGUAGES_PROPERTY =
+            "knime.scijava.scripting.enginepool.languages";
+
+    /** System property to disable the warm-up with <code>false</code> */
+    public static final String WARM_UP_PROPERTY =
+            "knime.scijava.scripting.enginepool.warmup";
+
+    private static final int DEFAULT_SIZE = 2;
+
+    private static final long DEFAULT_IDLE_TIMEOUT = 300;
+
+    /* Jython and Nashorn evaluate scripts in the scope of their context */
+    private static final String DEFAULT_LANGUAGES = "python,javascript";
+
+    /** singleton instance */
+    private static ScriptEnginePool m_instance = null;
+
+    private final int m_size;
+    private final long m_idleTimeoutMillis;
+
+    /* lower case names of the languages whose engines are pooled */
+    private final Set<String> m_languages;
+
+    /*
+     * idle engines per language, most recently released first. Languages
+     * belong to a context and are not kept alive by the pool.
+     */
+    private final Map<ScriptLanguage, Deque<IdleEngine>> m_idleEngines =
+            new WeakHashMap<>();
+
+    private final ScheduledExecutorService m_executor;
+
+    /**
+     * Constructor.
+     *
+     * @param size
+     *            maximum number of idle engines to keep per language
+     * @param idleTimeout
+     *            seconds after which an idle engine is evicted
+     * @param languages
+     *            names of the languages whose engines are pooled
+     */
+    public ScriptEnginePool(final int size, final long idleTimeout,
+            final Collection<String> languages) {
+        m_size = size;
+        m_idleTimeoutMillis = TimeUnit.SECONDS.toMillis(idleTimeout);
+        m_languages = new HashSet<>();
+        for (final String language : languages) {
+            m_languages.add(language.trim().toLowerCase(Locale.ROOT));
+        }
+
+        m_executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "SciJava Script Engine Pool");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (idleTimeout > 0) {
+            m_executor.scheduleWithFixedDelay(this::evictIdle, idleTimeout,
+                    idleTimeout, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Get the JVM wide pool instance.
+     *
+     * @return the singletons instance
+     */
+    public static synchronized ScriptEnginePool get() {
+        if (m_instance == null) {
+            m_instance = new ScriptEnginePool(
+                    Integer.getInteger(SIZE_PROPERTY, DEFAULT_SIZE),
+                    Long.getLong(IDLE_TIMEOUT_PROPERTY, DEFAULT_IDLE_TIMEOUT),
+                    Arrays.asList(System
+                            .getProperty(LANGUAGES_PROPERTY, DEFAULT_LANGUAGES)
+                            .split(",")));
+        }
+        return m_instance;
+    }
+
+    /**
+     * @return <code>false</code> if the warm-up was disabled via
+     *         {@link #WARM_UP_PROPERTY}.
+     */
+    public static boolean isWarmUpEnabled() {
+        return !"false".equalsIgnoreCase(System.getProperty(WARM_UP_PROPERTY));
+    }
+
+    /**
+     * @param language
+     *            the language
+     * @return whether engines of the language are pooled
+     */
+    public boolean isPooled(final ScriptLanguage language) {
+        return m_languages.contains(
+                language.getLanguageName().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Take an idle engine for the given language from the pool or create a
+     * new one if there is none.
+     *
+     * @param language
+     *            language to get an engine for
+     * @return the engine, to be given back via
+     *         {@link #release(ScriptLanguage, ScriptEngine)}.
+     */
+    public ScriptEngine borrow(final ScriptLanguage language) {
+        synchronized (this) {
+            final Deque<IdleEngine> engines = m_idleEngines.get(language);
+            if (engines != null && !engines.isEmpty()) {
+                return engines.pop().m_engine;
+            }
+        }
+        // NB: create outside of the lock, this may take seconds
+        return language.getScriptEngine();
+    }
+
+    /**
+     * Give an engine back to the pool. The engine gets a fresh
+     * {@link ScriptContext} with new engine scope bindings, so that no state
+     * leaks to the next module. Engines of languages which are not pooled,
+     * whose context can not be replaced or which exceed the pool size are
+     * discarded.
+     *
+     * @param language
+     *            language the engine was borrowed for
+     * @param engine
+     *            the engine
+     */
+    public void release(final ScriptLanguage language,
+            final ScriptEngine engine) {
+        if (!isPooled(language)) {
+            return;
+        }
+        try {
+            engine.setContext(createContext(engine));
+        } catch (final RuntimeException e) {
+            return;
+        }
+        offer(language, engine);
+    }
+
+    /*
+     * Create a context with new engine scope bindings, keeping the global
+     * scope bindings of the engine. New bindings are created by the engine,
+     * e.g. Nashorn bindings come with the JavaScript built-ins.
+     */
+    private static ScriptContext createContext(final ScriptEngine engine) {
+        final ScriptContext context = new SimpleScriptContext();
+        context.setBindings(engine.createBindings(),
+                ScriptContext.ENGINE_SCOPE);
+        final Bindings global =
+                engine.getContext().getBindings(ScriptContext.GLOBAL_SCOPE);
+        if (global != null) {
+            context.setBindings(global, ScriptContext.GLOBAL_SCOPE);
+        }
+        return context;
+    }
+
+    /**
+     * Create an idle engine for every pooled language which has none yet.
+     * Engines are created one after the other on the pools daemon thread.
+     *
+     * @param languages
+     *            languages to create engines for
+     * @param classLoader
+     *            context class loader to create the engines with
+     */
+    public void warmUp(final Collection<ScriptLanguage> languages,
+            final ClassLoader classLoader) {
+        for (final ScriptLanguage language : languages) {
+            if (!isPooled(language)) {
+                continue;
+            }
+            m_executor.execute(() -> {
+                if (getIdleCount(language) > 0) {
+                    return;
+                }
+                try (final TempClassLoader cl =
+                        new TempClassLoader(classLoader)) {
+                    offer(language, language.getScriptEngine());
+                } catch (final RuntimeException | LinkageError e) {
+                    // NB: the engine will be created on demand instead
+                }
+            });
+        }
+    }
+
+    /**
+     * @param language
+     *            the language
+     * @return number of idle engines for the language
+     */
+    public synchronized int getIdleCount(final ScriptLanguage language) {
+        final Deque<IdleEngine> engines = m_idleEngines.get(language);
+        return (engines == null) ? 0 : engines.size();
+    }
+
+    /**
+     * Discard all engines which have been idle for longer than the idle
+     * timeout.
+     */
+    public synchronized void evictIdle() {
+        final long oldest = System.currentTimeMillis() - m_idleTimeoutMillis;
+        for (final Deque<IdleEngine> engines : m_idleEngines.values()) {
+            // NB: least recently released engines are at the end
+            final Iterator<IdleEngine> it = engines.descendingIterator();
+            while (it.hasNext() && it.next().m_releaseTime < oldest) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Discard all idle engines.
+     */
+    public synchronized void clear() {
+        m_idleEngines.clear();
+    }
+
+    private synchronized void offer(final ScriptLanguage language,
+            final ScriptEngine engine) {
+        Deque<IdleEngine> engines = m_idleEngines.get(language);
+        if (engines == null) {
+            engines = new ArrayDeque<>(m_size);
+            m_idleEngines.put(language, engines);
+        }
+        if (engines.size() < m_size) {
+            engines.push(new IdleEngine(engine));
+        }
+    }
+
+    /*
+     * Engine in the pool and the time it was put there.
+     */
+    private static class IdleEngine {
+        private final ScriptEngine m_engine;
+        private final long m_releaseTime = System.currentTimeMillis();
+
+        public IdleEngine(final ScriptEngine engine) {
+            m_engine = engine;
+        }
+    }
+}
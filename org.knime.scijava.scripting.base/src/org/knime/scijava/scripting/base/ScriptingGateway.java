@@ -19,10 +19,9 @@ import org.knime.scijava.core.SubContext;
 import org.knime.scijava.core.pluginindex.ReusablePluginIndex;
 import org.scijava.Context;
 import org.scijava.command.CommandService;
-import org.scijava.display.DisplayPostprocessor;
 import org.scijava.plugin.DefaultPluginFinder;
 import org.scijava.plugin.PluginIndex;
-import org.scijava.plugin.PluginService;
+import org.scijava.script.ScriptService;
 import org.scijava.service.Service;
 import org.scijava.ui.swing.script.LanguageSupportService;
 
@@ -57,6 +56,9 @@ public class ScriptingGateway {
      */
     private Context m_globalContext;
 
+    /* plugin index of the subcontexts, see SubContextPluginIndex */
+    private PluginIndex m_subContextPluginIndex;
+
     /** the services which must be local to the node. */
     protected static List<Class<? extends Service>> localServices = Arrays
             .asList(InputDataRowService.class, OutputDataRowService.class,
@@ -74,8 +76,25 @@ public class ScriptingGateway {
         m_classLoader = new ResourceAwareClassLoader(
                 getClass().getClassLoader(), getClass());
 
-        m_pluginIndex = new ReusablePluginIndex(
-                new DefaultPluginFinder(m_classLoader));
+        // NB: the plugin annotation indices are read from an on-disk cache
+        m_pluginIndex = new ReusablePluginIndex(new DefaultPluginFinder(
+                PluginIndexCache.wrap(m_classLoader)));
+    }
+
+    /*
+     * Create the global context and an idle script engine for every language
+     * in the background, so that the first execution of a script does not
+     * need to wait for it.
+     */
+    private void warmUpScriptEngines() {
+        final ClassLoader classLoader = createUrlClassLoader();
+        final Thread thread = new Thread(() -> {
+            ScriptEnginePool.get().warmUp(getScriptService().getLanguages(),
+                    classLoader);
+        }, "SciJava Scripting Warm-Up");
+        thread.setContextClassLoader(classLoader);
+        thread.setDaemon(true);
+        thread.start();
     }
 
     /**
@@ -86,6 +105,12 @@ public class ScriptingGateway {
     public static synchronized ScriptingGateway get() {
         if (m_instance == null) {
             m_instance = new ScriptingGateway();
+
+            // NB: started once the gateway is constructed, the warm-up
+            // thread uses it
+            if (ScriptEnginePool.isWarmUpEnabled()) {
+                m_instance.warmUpScriptEngines();
+            }
         }
 
         return m_instance;
@@ -98,17 +123,35 @@ public class ScriptingGateway {
      * @return the created context
      */
     public Context createSubContext() {
-        final Context context = new SubContext(getGlobalContext(),
-                localServices, m_pluginIndex);
+        // NB: creating the global context discovers the shared plugins
+        final Context global = getGlobalContext();
+        return new SubContext(global, localServices,
+                getSubContextPluginIndex());
+    }
 
-        // cleanup unwanted services
-        final PluginService plugins = context.getService(PluginService.class);
-        plugins.removePlugin(plugins.getPlugin(DisplayPostprocessor.class));
+    /*
+     * The plugin index shared by all subcontexts, built once after the global
+     * context discovered the plugins.
+     */
+    private synchronized PluginIndex getSubContextPluginIndex() {
+        if (m_subContextPluginIndex == null) {
+            m_subContextPluginIndex = new SubContextPluginIndex(m_pluginIndex);
+        }
+        return m_subContextPluginIndex;
+    }
 
-        return context;
+    /**
+     * Get the {@link ScriptService} of the global context. It is shared by
+     * all subcontexts, which only create the node local services, so the
+     * script languages can be looked up without creating a subcontext.
+     *
+     * @return the script service
+     */
+    public ScriptService getScriptService() {
+        return getGlobalContext().getService(ScriptService.class);
     }
 
-    private Context getGlobalContext() {
+    private synchronized Context getGlobalContext() {
         if (m_globalContext == null) {
             m_globalContext = new Context(m_pluginIndex);
 
@@ -134,14 +177,15 @@ public class ScriptingGateway {
 
     /**
      * Create a {@link URLClassLoader} which contains scijava plugins and
-     * services.
+     * services. The class loader is created once, lookups of packages which
+     * are not contained in any bundle fail without searching the bundles.
      *
      * @return the class laoder
      */
-    public ClassLoader createUrlClassLoader() {
+    public synchronized ClassLoader createUrlClassLoader() {
 
         if (m_urlClassLoader == null) {
-            m_urlClassLoader = new URLClassLoader(
+            m_urlClassLoader = new IndexedUrlClassLoader(
                     m_classLoader.getBundleUrls().toArray(new URL[] {}),
                     new JoinClassLoader(getClassLoader(),
                             Thread.currentThread().getContextClassLoader()));
@@ -0,0 +1,85 @@
+package org.knime.scijava.scripting.base;
+
+import java.util.Collection;
+
+import org.scijava.display.DisplayPostprocessor;
+import org.scijava.plugin.PluginIndex;
+import org.scijava.plugin.PluginInfo;
+
+/**
+ * Plugin index of the subcontexts of a gateway: the plugins discovered by the
+ * gateway without the ones which are unwanted in a node. It is built once and
+ * shared by all subcontexts, so it can not be changed after its creation.
+ * <p>
+ * The index of the gateway is shared with the global context and must not be
+ * changed either, removing plugins through the PluginService of a subcontext
+ * would.
+ * </p>
+ */
+class SubContextPluginIndex extends PluginIndex {
+
+    /* whether the index is complete, it can not be changed afterwards */
+    private boolean m_sealed = false;
+
+    /**
+     * Constructor.
+     *
+     * @param discovered
+     *            the plugins discovered by the gateway
+     */
+    SubContextPluginIndex(final PluginIndex discovered) {
+        // NB: without a finder, the index is not discovered again
+        super(null);
+        for (final PluginInfo<?> info : discovered.getAll()) {
+            if (!DisplayPostprocessor.class.getName()
+                    .equals(info.getClassName())) {
+                add(info);
+            }
+        }
+        m_sealed = true;
+    }
+
+    @Override
+    public boolean add(final PluginInfo<?> info) {
+        checkUnsealed();
+        return super.add(info);
+    }
+
+    @Override
+    public boolean addAll(final Collection<? extends PluginInfo<?>> infos) {
+        checkUnsealed();
+        return super.addAll(infos);
+    }
+
+    @Override
+    public boolean remove(final Object info) {
+        checkUnsealed();
+        return super.remove(info);
+    }
+
+    @Override
+    public boolean removeAll(final Collection<?> infos) {
+        checkUnsealed();
+        return super.removeAll(infos);
+    }
+
+    @Override
+    public boolean retainAll(final Collection<?> infos) {
+        checkUnsealed();
+        return super.retainAll(infos);
+    }
+
+    @Override
+    public void clear() {
+        checkUnsealed();
+        super.clear();
+    }
+
+    private void checkUnsealed() {
+        if (m_sealed) {
+            throw new UnsupportedOperationException(
+                    "The plugin index of subcontexts is shared and can not"
+                            + " be changed.");
+        }
+    }
+}
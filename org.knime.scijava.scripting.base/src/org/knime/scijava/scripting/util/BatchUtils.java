@@ -0,0 +1,129 @@
+package org.knime.scijava.scripting.util;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.scijava.module.ModuleItem;
+
+/**
+ * Utilities for modules which process a batch of rows per execution.
+ * <p>
+ * In a batch, every column input receives the values of all rows of the
+ * batch and every output returns one value per row. Items declared as an
+ * array or a {@link List} receive and return values of their element type,
+ * items declared with any other type receive a {@link List} of that type.
+ * The latter allows dynamically typed script languages to declare the type of
+ * a single value.
+ * </p>
+ * <p>
+ * Missing values are passed as <code>null</code>. Arrays of a primitive type
+ * can not hold them, batches containing missing values fail for such inputs.
+ * </p>
+ */
+public class BatchUtils {
+
+    private BatchUtils() {
+        // NB Utility class
+    }
+
+    /**
+     * Get the type of the single values of a batch item.
+     *
+     * @param item
+     *            the batch item
+     * @return the component type for arrays, the type argument for
+     *         parameterized lists and the declared type otherwise.
+     */
+    public static Class<?> getElementType(final ModuleItem<?> item) {
+        final Class<?> type = item.getType();
+        if (type.isArray()) {
+            return type.getComponentType();
+        }
+
+        if (Collection.class.isAssignableFrom(type)) {
+            final Type genericType = item.getGenericType();
+            if (genericType instanceof ParameterizedType) {
+                final Type argument = ((ParameterizedType) genericType)
+                        .getActualTypeArguments()[0];
+                if (argument instanceof Class) {
+                    return (Class<?>) argument;
+                }
+            }
+            return Object.class;
+        }
+
+        return type;
+    }
+
+    /**
+     * Create the value to set for a batch input from the values of the
+     * single rows.
+     *
+     * @param item
+     *            the batch input
+     * @param values
+     *            the values of the rows in the batch
+     * @return array of the declared type for array inputs, a {@link List}
+     *         otherwise.
+     * @throws IllegalArgumentException
+     *             if a value is missing and the input is an array of a
+     *             primitive type
+     */
+    public static Object toBatchValue(final ModuleItem<?> item,
+            final List<Object> values) {
+        final Class<?> type = item.getType();
+        if (!type.isArray()) {
+            return values;
+        }
+
+        final Class<?> componentType = type.getComponentType();
+        final Object array = Array.newInstance(componentType, values.size());
+        for (int i = 0; i < values.size(); ++i) {
+            final Object value = values.get(i);
+            if (value != null) {
+                Array.set(array, i, value);
+            } else if (componentType.isPrimitive()) {
+                throw new IllegalArgumentException("Input \"" + item.getName()
+                        + "\" of type " + componentType.getName()
+                        + "[] can not receive the missing value of row " + i
+                        + " of the batch. Declare it as an array of the boxed"
+                        + " type or as a List to receive missing values as"
+                        + " null.");
+            }
+        }
+        return array;
+    }
+
+    /**
+     * Get the single row values of a batch output.
+     *
+     * @param value
+     *            the output value, an array or {@link Iterable}
+     * @return the values as list or <code>null</code> if the value is neither
+     *         an array nor an {@link Iterable}.
+     */
+    public static List<Object> toList(final Object value) {
+        if (value == null) {
+            return null;
+        }
+
+        final List<Object> list = new ArrayList<>();
+        if (value.getClass().isArray()) {
+            final int length = Array.getLength(value);
+            for (int i = 0; i < length; ++i) {
+                list.add(Array.get(value, i));
+            }
+        } else if (value instanceof Iterable) {
+            for (final Object o : (Iterable<?>) value) {
+                list.add(o);
+            }
+        } else {
+            return null;
+        }
+        return list;
+    }
+}
@@ -0,0 +1,41 @@
+package org.knime.scijava.scripting.benchmark;
+
+/**
+ * A single benchmark executed by the {@link BenchmarkRunner}. Only
+ * {@link #run()} is measured.
+ */
+public interface Benchmark {
+
+    /**
+     * @return name of the benchmark, e.g. <code>compile/Groovy</code>
+     */
+    String getName();
+
+    /**
+     * Prepare the benchmark before the first warm-up iteration.
+     *
+     * @throws Exception
+     */
+    default void setUp() throws Exception {
+        /* nothing to prepare by default */
+    }
+
+    /**
+     * Execute one operation.
+     *
+     * @return the result of the operation, which is consumed by the runner to
+     *         prevent the JIT from removing the operation.
+     * @throws Exception
+     */
+    Object run() throws Exception;
+
+    /**
+     * Free resources after the last measurement iteration. Also called if
+     * {@link #setUp()} failed.
+     *
+     * @throws Exception
+     */
+    default void tearDown() throws Exception {
+        /* nothing to free by default */
+    }
+}
@@ -0,0 +1,131 @@
+package org.knime.scijava.scripting.benchmark;
+
+import java.util.HashMap;
+
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.container.CellFactory;
+import org.knime.core.data.container.ContainerTable;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.NodeProgressMonitor;
+import org.knime.core.node.NodeSettings;
+import org.knime.core.node.workflow.SingleNodeContainer.MemoryPolicy;
+import org.knime.scijava.commands.settings.NodeModelSettingsService;
+import org.knime.scijava.scripting.base.ScriptingGateway;
+import org.knime.scijava.scripting.nodes.interactive.SciJavaScriptingNodeFactory;
+import org.knime.scijava.scripting.nodes.interactive.SciJavaScriptingNodeModel;
+import org.knime.scijava.scripting.nodes.interactive.settings.SciJavaScriptingNodeSettings;
+import org.knime.scijava.scripting.nodes.interactive.settings.ScriptDialogMode;
+import org.scijava.Context;
+
+/**
+ * {@link SciJavaScriptingNodeModel} which can be driven without a workflow.
+ */
+public class BenchmarkNodeModel extends SciJavaScriptingNodeModel {
+
+    private final Context m_context;
+
+    /**
+     * Constructor. The node model gets its own subcontext, like a node
+     * created by the node factory.
+     */
+    public BenchmarkNodeModel() {
+        this(ScriptingGateway.get().createSubContext());
+    }
+
+    private BenchmarkNodeModel(final Context context) {
+        super(context);
+        m_context = context;
+    }
+
+    /**
+     * Create settings for a node which executes the given script.
+     *
+     * @param languageName
+     *            name of the script language
+     * @param script
+     *            the script code
+     * @return the settings, in settings edit mode so that the node can be
+     *         executed
+     */
+    public static SciJavaScriptingNodeSettings createSettings(
+            final String languageName, final String script) {
+        final SciJavaScriptingNodeSettings settings =
+                new SciJavaScriptingNodeSettings();
+        settings.setScriptLanguageName(languageName);
+        settings.setScriptCode(script);
+        settings.setMode(ScriptDialogMode.SETTINGS_EDIT);
+        return settings;
+    }
+
+    /**
+     * Create an execution context which is not part of a workflow. Tables
+     * created with it are kept in memory if they are small.
+     *
+     * @param monitor
+     *            progress monitor of the context
+     * @return the execution context
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public static ExecutionContext createExecutionContext(
+            final NodeProgressMonitor monitor) {
+        final NodeFactory<NodeModel> factory =
+                (NodeFactory) new SciJavaScriptingNodeFactory();
+        return new ExecutionContext(monitor, new Node(factory),
+                MemoryPolicy.CacheSmallInMemory,
+                new HashMap<Integer, ContainerTable>());
+    }
+
+    /**
+     * Load the given settings into the node model.
+     *
+     * @param settings
+     *            the settings
+     * @throws InvalidSettingsException
+     */
+    public void loadSettings(final SciJavaScriptingNodeSettings settings)
+            throws InvalidSettingsException {
+        final NodeSettings nodeSettings = new NodeSettings("benchmark");
+        settings.saveSettingsTo(nodeSettings,
+                m_context.getService(NodeModelSettingsService.class));
+        loadValidatedSettingsFrom(nodeSettings);
+    }
+
+    @Override
+    public DataTableSpec[] configure(final DataTableSpec[] inSpecs)
+            throws InvalidSettingsException {
+        return super.configure(inSpecs);
+    }
+
+    @Override
+    public BufferedDataTable[] execute(final BufferedDataTable[] inData,
+            final ExecutionContext exec) throws Exception {
+        return super.execute(inData, exec);
+    }
+
+    /**
+     * @return the cell factory created by the last configure
+     */
+    public CellFactory getConfiguredCellFactory() {
+        return getCellFactory();
+    }
+
+    /**
+     * Release the resources of the node model, as done when a node is
+     * removed from a workflow.
+     */
+    public void dispose() {
+        onDispose();
+    }
+
+    /**
+     * @return the context of the node model
+     */
+    public Context getContext() {
+        return m_context;
+    }
+}
@@ -0,0 +1,146 @@
+package org.knime.scijava.scripting.benchmark;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs {@link Benchmark}s in a fixed number of timed iterations. Every
+ * iteration executes the operation until the iteration time is up and
+ * records the average time per operation. Warm-up iterations are executed
+ * first and not recorded, so that the measured code has been compiled by the
+ * JIT.
+ */
+public class BenchmarkRunner {
+
+    private final int m_warmupIterations;
+    private final int m_measurementIterations;
+    private final long m_iterationNanos;
+
+    /* results of all operations are folded into this field */
+    private volatile int m_sink;
+
+    /**
+     * Constructor.
+     *
+     * @param warmupIterations
+     *            number of iterations which are not recorded
+     * @param measurementIterations
+     *            number of recorded iterations
+     * @param iterationMillis
+     *            duration of a single iteration
+     */
+    public BenchmarkRunner(final int warmupIterations,
+            final int measurementIterations, final long iterationMillis) {
+        m_warmupIterations = warmupIterations;
+        m_measurementIterations = measurementIterations;
+        m_iterationNanos = TimeUnit.MILLISECONDS.toNanos(iterationMillis);
+    }
+
+    /**
+     * Set up, warm up, measure and tear down the given benchmark.
+     *
+     * @param benchmark
+     *            the benchmark to run
+     * @return the measured time per operation
+     * @throws Exception
+     *             if the benchmark failed
+     */
+    public Result run(final Benchmark benchmark) throws Exception {
+        // NB: torn down even if the set up failed, to free what it created
+        try {
+            benchmark.setUp();
+            for (int i = 0; i < m_warmupIterations; ++i) {
+                iteration(benchmark);
+            }
+
+            final double[] nanosPerOp = new double[m_measurementIterations];
+            for (int i = 0; i < nanosPerOp.length; ++i) {
+                nanosPerOp[i] = iteration(benchmark);
+            }
+            return new Result(benchmark.getName(), nanosPerOp);
+        } finally {
+            benchmark.tearDown();
+        }
+    }
+
+    /*
+     * Run the benchmark for one iteration.
+     */
+    private double iteration(final Benchmark benchmark) throws Exception {
+        int sink = 0;
+        long ops = 0;
+        final long start = System.nanoTime();
+        long now;
+        do {
+            sink += System.identityHashCode(benchmark.run());
+            ++ops;
+            now = System.nanoTime();
+        } while (now - start < m_iterationNanos);
+
+        m_sink += sink;
+        return (double) (now - start) / ops;
+    }
+
+    /**
+     * Time per operation measured for a benchmark.
+     */
+    public static class Result {
+
+        private final String m_name;
+        private final double m_mean;
+        private final double m_error;
+
+        /**
+         * Constructor.
+         *
+         * @param name
+         *            name of the benchmark
+         * @param nanosPerOp
+         *            time per operation of every measurement iteration
+         */
+        public Result(final String name, final double[] nanosPerOp) {
+            m_name = name;
+
+            double sum = 0;
+            for (final double value : nanosPerOp) {
+                sum += value;
+            }
+            m_mean = sum / nanosPerOp.length;
+
+            double squares = 0;
+            for (final double value : nanosPerOp) {
+                squares += (value - m_mean) * (value - m_mean);
+            }
+            m_error = (nanosPerOp.length > 1)
+                    ? Math.sqrt(squares / (nanosPerOp.length - 1)) : 0;
+        }
+
+        /**
+         * @return name of the benchmark
+         */
+        public String getName() {
+            return m_name;
+        }
+
+        /**
+         * @return mean time per operation in nanoseconds
+         */
+        public double getMean() {
+            return m_mean;
+        }
+
+        /**
+         * @return standard deviation of the time per operation over the
+         *         measurement iterations in nanoseconds
+         */
+        public double getError() {
+            return m_error;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%-40s %16.1f ns/op +- %.1f",
+                    m_name, m_mean, m_error);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package org.knime.scijava.scripting.benchmark;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.knime.scijava.commands.KNIMESciJavaConstants;
+
+/**
+ * Scripts used by the benchmarks. Every script has a single
+ * <code>Double</code> output named <code>out</code> and does as little work
+ * as possible, so that benchmarks measure the overhead of the node rather
+ * than the script.
+ */
+public class BenchmarkScripts {
+
+    /** Names of the languages for which a script is available */
+    public static final List<String> LANGUAGES = Collections.unmodifiableList(
+            Arrays.asList("Java", "Groovy", "JavaScript", "Python",
+                    "BeanShell"));
+
+    /** Name of the output of all scripts */
+    public static final String OUTPUT = "out";
+
+    private static final String JAVA = "import org.scijava.ItemIO;\n"
+            + "import org.scijava.command.Command;\n"
+            + "import org.scijava.plugin.Parameter;\n"
+            + "import org.scijava.plugin.Plugin;\n\n"
+            + "@Plugin(type = Command.class)\n"
+            + "public class BenchmarkScript implements Command {\n\n"
+            + "\t@Parameter(type = ItemIO.OUTPUT)\n"
+            + "\tprivate Double out;\n\n"
+            + "\t@Override\n"
+            + "\tpublic void run() {\n"
+            + "\t\tout = 1.0;\n"
+            + "\t}\n"
+            + "}\n";
+
+    private BenchmarkScripts() {
+        // NB Utility class
+    }
+
+    /**
+     * @param languageName
+     *            name of the script language
+     * @return the script for the given language
+     * @throws IllegalArgumentException
+     *             if there is no script for the language
+     */
+    public static String getScript(final String languageName) {
+        switch (languageName) {
+        case "Java":
+            return JAVA;
+        case "Groovy":
+            return "// @OUTPUT Double out\nout = 1.0\n";
+        case "JavaScript":
+        case "BeanShell":
+            return "// @OUTPUT Double out\nout = 1.0;\n";
+        case "Python":
+            return "# @OUTPUT Double out\nout = 1.0\n";
+        default:
+            throw new IllegalArgumentException(
+                    "No benchmark script for " + languageName + ".");
+        }
+    }
+
+    /**
+     * Get a script whose output depends on the input row: the output
+     * <code>out</code> is twice the value of the given <code>Double</code>
+     * column.
+     *
+     * @param languageName
+     *            name of the script language
+     * @param column
+     *            name of the column to read
+     * @return the script for the given language
+     * @throws IllegalArgumentException
+     *             if there is no script for the language
+     */
+    public static String getRowScript(final String languageName,
+            final String column) {
+        final String comment;
+        final String terminator;
+        switch (languageName) {
+        case "Groovy":
+            comment = "//";
+            terminator = "";
+            break;
+        case "JavaScript":
+        case "BeanShell":
+            comment = "//";
+            terminator = ";";
+            break;
+        case "Python":
+            comment = "#";
+            terminator = "";
+            break;
+        default:
+            throw new IllegalArgumentException(
+                    "No row script for " + languageName + ".");
+        }
+        return comment + " @Double(" + KNIMESciJavaConstants.COLUMN_SELECT_KEY
+                + "= \"true\", " + KNIMESciJavaConstants.DEFAULT_COLUMN_KEY
+                + "= \"" + column + "\") value\n" + comment
+                + " @OUTPUT Double out\nout = value * 2" + terminator + "\n";
+    }
+}
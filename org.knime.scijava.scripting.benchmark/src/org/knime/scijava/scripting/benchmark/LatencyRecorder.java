@@ -0,0 +1,75 @@
+package org.knime.scijava.scripting.benchmark;
+
+import java.util.Arrays;
+
+/**
+ * Records the intervals between consecutive calls to {@link #mark()}. When
+ * marked once per processed row, the intervals are the per-row latencies.
+ */
+public class LatencyRecorder {
+
+    private long[] m_intervals = new long[1024];
+    private int m_size = 0;
+    private long m_last = -1;
+
+    /**
+     * Start a new measurement. The interval to the next {@link #mark()} is
+     * the first one recorded.
+     */
+    public void start() {
+        m_last = System.nanoTime();
+    }
+
+    /**
+     * Record the interval since the last mark or start. Does nothing if the
+     * recorder was not started.
+     */
+    public void mark() {
+        final long now = System.nanoTime();
+        if (m_last >= 0) {
+            if (m_size == m_intervals.length) {
+                m_intervals = Arrays.copyOf(m_intervals, m_size * 2);
+            }
+            m_intervals[m_size++] = now - m_last;
+        }
+        m_last = now;
+    }
+
+    /**
+     * Stop recording until the next {@link #start()}.
+     */
+    public void stop() {
+        m_last = -1;
+    }
+
+    /**
+     * Discard all recorded intervals.
+     */
+    public void clear() {
+        m_size = 0;
+        m_last = -1;
+    }
+
+    /**
+     * @return number of recorded intervals
+     */
+    public int getCount() {
+        return m_size;
+    }
+
+    /**
+     * @param percentile
+     *            the percentile, between 0 and 100
+     * @return the given percentile of the recorded intervals in nanoseconds,
+     *         <code>-1</code> if nothing was recorded
+     */
+    public long getPercentile(final double percentile) {
+        if (m_size == 0) {
+            return -1;
+        }
+        final long[] sorted = Arrays.copyOf(m_intervals, m_size);
+        Arrays.sort(sorted);
+        final int index = (int) Math.ceil(percentile / 100 * m_size) - 1;
+        return sorted[Math.max(0, Math.min(m_size - 1, index))];
+    }
+}
@@ -0,0 +1,161 @@
+package org.knime.scijava.scripting.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import org.eclipse.equinox.app.IApplication;
+import org.eclipse.equinox.app.IApplicationContext;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.container.CellFactory;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.scijava.core.TempClassLoader;
+import org.knime.scijava.scripting.base.ScriptingGateway;
+import org.knime.scijava.scripting.nodes.interactive.settings.SciJavaScriptingNodeSettings;
+
+/**
+ * Headless application checking the bytes allocated per row by the cell
+ * factory of a node executing a trivial script with direct invocation. The
+ * allocations are measured with the per thread allocation counter of the
+ * HotSpot {@link java.lang.management.ThreadMXBean}, after the rows were
+ * computed often enough for the JIT to compile the row path.
+ * <p>
+ * Run with
+ * <code>knime -nosplash -consoleLog -application
+ * org.knime.scijava.scripting.benchmark.allocations</code> and optionally
+ * <code>-rows &lt;rows&gt; -warmup &lt;rows&gt;
+ * -maxBytesPerRow &lt;bytes&gt; -languages &lt;regex&gt;</code>. By default
+ * only the Java script is checked, the engines of other languages allocate
+ * while evaluating a script. The application exits with <code>1</code> if
+ * any language allocates more than the maximum per row.
+ * </p>
+ */
+public class ScriptingAllocationTest implements IApplication {
+
+    private long m_rows = 100000;
+    private long m_warmup = 200000;
+    private long m_maxBytesPerRow = 1024;
+    private Pattern m_languages = Pattern.compile("Java");
+
+    @Override
+    public Object start(final IApplicationContext context) throws Exception {
+        parseArguments((String[]) context.getArguments()
+                .get(IApplicationContext.APPLICATION_ARGS));
+
+        final java.lang.management.ThreadMXBean bean =
+                ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            System.out.println("SKIPPED: the JVM does not count allocations"
+                    + " per thread.");
+            return IApplication.EXIT_OK;
+        }
+        final com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) bean;
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        boolean failed = false;
+        try (final TempClassLoader cl = new TempClassLoader(
+                ScriptingGateway.get().createUrlClassLoader())) {
+            for (final String language : BenchmarkScripts.LANGUAGES) {
+                if (!m_languages.matcher(language).matches()) {
+                    continue;
+                }
+                String result;
+                try {
+                    final double bytesPerRow = measure(language, threads);
+                    final boolean exceeded = bytesPerRow > m_maxBytesPerRow;
+                    failed |= exceeded;
+                    result = String.format(Locale.ROOT,
+                            "%.1f bytes/row %s", bytesPerRow,
+                            exceeded ? "EXCEEDED " + m_maxBytesPerRow : "OK");
+                } catch (final Exception e) {
+                    result = "ERROR " + e;
+                    failed = true;
+                }
+                System.out.println(language + ": " + result);
+            }
+        }
+        return failed ? Integer.valueOf(1) : IApplication.EXIT_OK;
+    }
+
+    @Override
+    public void stop() {
+        /* tests can not be interrupted */
+    }
+
+    private void parseArguments(final String[] args) {
+        for (int i = 0; args != null && i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+            case "-rows":
+                m_rows = Long.parseLong(args[i + 1]);
+                break;
+            case "-warmup":
+                m_warmup = Long.parseLong(args[i + 1]);
+                break;
+            case "-maxBytesPerRow":
+                m_maxBytesPerRow = Long.parseLong(args[i + 1]);
+                break;
+            case "-languages":
+                m_languages = Pattern.compile(args[i + 1]);
+                break;
+            default:
+                System.err.println("Ignoring unknown argument " + args[i]);
+            }
+        }
+    }
+
+    /*
+     * Compute the cells of pregenerated rows on this thread and return the
+     * bytes allocated per row.
+     */
+    private double measure(final String language,
+            final com.sun.management.ThreadMXBean threads) throws Exception {
+        final SciJavaScriptingNodeSettings settings =
+                BenchmarkNodeModel.createSettings(language,
+                        BenchmarkScripts.getScript(language));
+        settings.setDirectInvocation(true);
+
+        final DataTableSpec spec =
+                SyntheticTables.createSpec(1, DoubleCell.TYPE);
+        final List<DataRow> rows = new ArrayList<>();
+        for (int i = 0; i < 1024; ++i) {
+            rows.add(SyntheticTables.createRow(spec, i));
+        }
+
+        final BenchmarkNodeModel model = new BenchmarkNodeModel();
+        try {
+            model.loadSettings(settings);
+            model.configure(new DataTableSpec[] { spec });
+            final CellFactory factory = model.getConfiguredCellFactory();
+
+            long sink = computeRows(factory, rows, m_warmup);
+
+            final long thread = Thread.currentThread().getId();
+            final long before = threads.getThreadAllocatedBytes(thread);
+            sink += computeRows(factory, rows, m_rows);
+            final long allocated =
+                    threads.getThreadAllocatedBytes(thread) - before;
+
+            // NB: consume the cells so that the JIT can not remove the rows
+            if (sink == 42) {
+                System.out.print("");
+            }
+            return (double) allocated / m_rows;
+        } finally {
+            model.dispose();
+        }
+    }
+
+    private static long computeRows(final CellFactory factory,
+            final List<DataRow> rows, final long count) {
+        long sink = 0;
+        for (long i = 0; i < count; ++i) {
+            sink += factory.getCells(rows.get((int) (i % rows.size())))
+                    .length;
+        }
+        return sink;
+    }
+}
@@ -0,0 +1,374 @@
+package org.knime.scijava.scripting.benchmark;
+
+import java.io.StringWriter;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import javax.script.Compilable;
+import javax.script.ScriptEngine;
+
+import org.eclipse.equinox.app.IApplication;
+import org.eclipse.equinox.app.IApplicationContext;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.container.CellFactory;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.scijava.core.TempClassLoader;
+import org.knime.scijava.scripting.base.CompileCache;
+import org.knime.scijava.scripting.base.CompileHelper;
+import org.knime.scijava.scripting.base.CompileProductHelper;
+import org.knime.scijava.scripting.base.JoinClassLoader;
+import org.knime.scijava.scripting.base.ScriptingGateway;
+import org.knime.scijava.scripting.nodes.interactive.settings.SciJavaScriptingNodeSettings;
+import org.scijava.Context;
+import org.scijava.module.Module;
+import org.scijava.module.ModuleService;
+import org.scijava.script.ScriptLanguage;
+import org.scijava.script.ScriptService;
+
+/**
+ * Headless application running micro benchmarks of the scripting hot paths:
+ * compiling scripts, computing the cells of a row, resetting modules, class
+ * loading through the {@link JoinClassLoader} and creating subcontexts.
+ * <p>
+ * Run with
+ * <code>knime -nosplash -consoleLog -application
+ * org.knime.scijava.scripting.benchmark.micro</code> and optionally
+ * <code>-warmup &lt;iterations&gt; -iterations &lt;iterations&gt;
+ * -time &lt;milliseconds per iteration&gt; -filter &lt;regex&gt;</code>.
+ * </p>
+ */
+public class ScriptingMicroBenchmarks implements IApplication {
+
+    @Override
+    public Object start(final IApplicationContext context) throws Exception {
+        final String[] args = (String[]) context.getArguments()
+                .get(IApplicationContext.APPLICATION_ARGS);
+
+        int warmup = 5;
+        int iterations = 10;
+        long time = 1000;
+        Pattern filter = Pattern.compile(".*");
+        for (int i = 0; args != null && i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+            case "-warmup":
+                warmup = Integer.parseInt(args[i + 1]);
+                break;
+            case "-iterations":
+                iterations = Integer.parseInt(args[i + 1]);
+                break;
+            case "-time":
+                time = Long.parseLong(args[i + 1]);
+                break;
+            case "-filter":
+                filter = Pattern.compile(args[i + 1]);
+                break;
+            default:
+                System.err.println("Ignoring unknown argument " + args[i]);
+            }
+        }
+
+        final BenchmarkRunner runner =
+                new BenchmarkRunner(warmup, iterations, time);
+        try (final TempClassLoader cl = new TempClassLoader(
+                ScriptingGateway.get().createUrlClassLoader())) {
+            for (final Benchmark benchmark : createBenchmarks()) {
+                if (!filter.matcher(benchmark.getName()).matches()) {
+                    continue;
+                }
+                try {
+                    System.out.println(runner.run(benchmark));
+                } catch (final Exception e) {
+                    System.out.println(benchmark.getName() + " failed: " + e);
+                }
+            }
+        }
+        return IApplication.EXIT_OK;
+    }
+
+    @Override
+    public void stop() {
+        /* benchmarks can not be interrupted */
+    }
+
+    private static List<Benchmark> createBenchmarks() {
+        final List<Benchmark> benchmarks = new ArrayList<>();
+        for (final String language : BenchmarkScripts.LANGUAGES) {
+            benchmarks.add(new CompileBenchmark(language));
+        }
+        for (final String language : BenchmarkScripts.LANGUAGES) {
+            benchmarks.add(new GetCellsBenchmark(language, false));
+            benchmarks.add(new GetCellsBenchmark(language, true));
+        }
+        for (final String language : BenchmarkScripts.LANGUAGES) {
+            benchmarks.add(new ResetModuleBenchmark(language));
+        }
+        benchmarks.add(new FindResourceBenchmark());
+        benchmarks.add(new FindClassBenchmark());
+        benchmarks.add(new CreateSubContextBenchmark());
+        return benchmarks;
+    }
+
+    private static ScriptLanguage getLanguage(final Context context,
+            final String name) {
+        final ScriptLanguage language =
+                context.getService(ScriptService.class).getLanguageByName(name);
+        if (language == null) {
+            throw new IllegalStateException(
+                    "Language " + name + " is not available.");
+        }
+        return language;
+    }
+
+    /*
+     * Compile a script, bypassing the compile cache. Scripts of languages
+     * which are not compiled by the CompileHelper are compiled by their
+     * Compilable engine, as the node does on the first run of a module.
+     */
+    private static class CompileBenchmark implements Benchmark {
+
+        private final String m_languageName;
+        private Context m_context;
+        private ScriptLanguage m_language;
+        private CompileHelper m_compiler;
+        private Compilable m_engine;
+
+        public CompileBenchmark(final String languageName) {
+            m_languageName = languageName;
+        }
+
+        @Override
+        public String getName() {
+            return "compile/" + m_languageName;
+        }
+
+        @Override
+        public void setUp() {
+            m_context = ScriptingGateway.get().createSubContext();
+            m_language = getLanguage(m_context, m_languageName);
+            if (CompileHelper.isCompiled(m_language)) {
+                m_compiler = new CompileHelper(m_context, new StringWriter(),
+                        new StringWriter());
+                return;
+            }
+
+            final ScriptEngine engine = m_language.getScriptEngine();
+            if (!(engine instanceof Compilable)) {
+                throw new IllegalStateException("The script engine of "
+                        + m_languageName + " can not compile scripts.");
+            }
+            m_engine = (Compilable) engine;
+        }
+
+        @Override
+        public Object run() throws Exception {
+            final String script = BenchmarkScripts.getScript(m_languageName);
+            if (m_engine != null) {
+                return m_engine.compile(script);
+            }
+            CompileCache.get().clear();
+            return m_compiler.compile(script, m_language);
+        }
+
+        @Override
+        public void tearDown() {
+            if (m_context != null) {
+                m_context.dispose();
+            }
+        }
+    }
+
+    /*
+     * Compute the cells of a single row with the cell factory of a configured
+     * node.
+     */
+    private static class GetCellsBenchmark implements Benchmark {
+
+        private final String m_languageName;
+        private final boolean m_directInvocation;
+
+        private BenchmarkNodeModel m_model;
+        private CellFactory m_factory;
+        private DataRow m_row;
+
+        public GetCellsBenchmark(final String languageName,
+                final boolean directInvocation) {
+            m_languageName = languageName;
+            m_directInvocation = directInvocation;
+        }
+
+        @Override
+        public String getName() {
+            return (m_directInvocation ? "getCells-direct/" : "getCells/")
+                    + m_languageName;
+        }
+
+        @Override
+        public void setUp() throws Exception {
+            final SciJavaScriptingNodeSettings settings =
+                    BenchmarkNodeModel.createSettings(m_languageName,
+                            BenchmarkScripts.getScript(m_languageName));
+            settings.setDirectInvocation(m_directInvocation);
+
+            final DataTableSpec spec =
+                    SyntheticTables.createSpec(1, DoubleCell.TYPE);
+            m_model = new BenchmarkNodeModel();
+            m_model.loadSettings(settings);
+            m_model.configure(new DataTableSpec[] { spec });
+
+            m_factory = m_model.getConfiguredCellFactory();
+            m_row = SyntheticTables.createRow(spec, 0);
+        }
+
+        @Override
+        public Object run() {
+            return m_factory.getCells(m_row);
+        }
+
+        @Override
+        public void tearDown() {
+            if (m_model != null) {
+                m_model.dispose();
+            }
+        }
+    }
+
+    /*
+     * Reset a module which has been run once.
+     */
+    private static class ResetModuleBenchmark implements Benchmark {
+
+        private final String m_languageName;
+        private Context m_context;
+        private CompileProductHelper m_product;
+        private Module m_module;
+
+        public ResetModuleBenchmark(final String languageName) {
+            m_languageName = languageName;
+        }
+
+        @Override
+        public String getName() {
+            return "resetModule/" + m_languageName;
+        }
+
+        @Override
+        public void setUp() throws Exception {
+            m_context = ScriptingGateway.get().createSubContext();
+            final ScriptLanguage language =
+                    getLanguage(m_context, m_languageName);
+            m_product = new CompileHelper(m_context, new StringWriter(),
+                    new StringWriter()).compile(
+                            BenchmarkScripts.getScript(m_languageName),
+                            language);
+            m_module = m_product.createModule(language, m_context);
+            m_context.getService(ModuleService.class).run(m_module, true)
+                    .get();
+        }
+
+        @Override
+        public Object run() {
+            m_product.resetModule(m_module);
+            return m_module;
+        }
+
+        @Override
+        public void tearDown() {
+            try {
+                if (m_module != null) {
+                    m_product.releaseModule(m_module);
+                }
+            } finally {
+                if (m_context != null) {
+                    m_context.dispose();
+                }
+            }
+        }
+    }
+
+    /*
+     * Look up a resource which is contained in the scijava-common bundle.
+     */
+    private static class FindResourceBenchmark implements Benchmark {
+
+        private ExposedJoinClassLoader m_loader;
+
+        @Override
+        public String getName() {
+            return "JoinClassLoader.findResource";
+        }
+
+        @Override
+        public void setUp() {
+            m_loader = new ExposedJoinClassLoader();
+        }
+
+        @Override
+        public Object run() {
+            return m_loader.findResource("org/scijava/Context.class");
+        }
+    }
+
+    /*
+     * Define a class in a new class loader, which is what happens for every
+     * class loaded through the JoinClassLoader for the first time.
+     */
+    private static class FindClassBenchmark implements Benchmark {
+
+        @Override
+        public String getName() {
+            return "JoinClassLoader.findClass";
+        }
+
+        @Override
+        public Object run() throws Exception {
+            return new ExposedJoinClassLoader()
+                    .findClass("org.scijava.Context");
+        }
+    }
+
+    /*
+     * Create the subcontext of a node. The subcontext is disposed right away,
+     * as the node does when it is disposed, so the measurement includes the
+     * disposal.
+     */
+    private static class CreateSubContextBenchmark implements Benchmark {
+
+        @Override
+        public String getName() {
+            return "ScriptingGateway.createSubContext";
+        }
+
+        @Override
+        public Object run() {
+            final Context context = ScriptingGateway.get().createSubContext();
+            context.dispose();
+            return context;
+        }
+    }
+
+    /*
+     * JoinClassLoader delegating to the same class loaders as the one created
+     * by the ScriptingGateway, with access to its lookup methods.
+     */
+    private static class ExposedJoinClassLoader extends JoinClassLoader {
+
+        public ExposedJoinClassLoader() {
+            super(null, ScriptingGateway.get().getClassLoader(),
+                    ScriptingMicroBenchmarks.class.getClassLoader());
+        }
+
+        @Override
+        public Class<?> findClass(final String name)
+                throws ClassNotFoundException {
+            return super.findClass(name);
+        }
+
+        @Override
+        public URL findResource(final String name) {
+            return super.findResource(name);
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package org.knime.scijava.scripting.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+import org.eclipse.equinox.app.IApplication;
+import org.eclipse.equinox.app.IApplicationContext;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.core.node.streamable.PartitionInfo;
+import org.knime.core.node.streamable.PortInput;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.streamable.RowOutput;
+import org.knime.core.node.streamable.StreamableOperator;
+import org.knime.scijava.scripting.nodes.interactive.settings.ColumnCreationMode;
+import org.knime.scijava.scripting.nodes.interactive.settings.SciJavaScriptingNodeSettings;
+
+/**
+ * Headless application checking that distributed streaming of the scripting
+ * node is partition safe. For every language and {@link ColumnCreationMode}
+ * the rows of a generated table are streamed through a single partition and
+ * through several partitions running concurrently. The concatenated outputs
+ * of the partitions must equal the output of the single partition.
+ * <p>
+ * Run with
+ * <code>knime -nosplash -consoleLog -application
+ * org.knime.scijava.scripting.benchmark.partitions</code> and optionally
+ * <code>-rows &lt;rows&gt; -partitions &lt;partitions&gt;
+ * -repetitions &lt;runs&gt; -languages &lt;regex&gt;</code>. The application
+ * exits with <code>1</code> if any output differs.
+ * </p>
+ */
+public class ScriptingPartitionStressTest implements IApplication {
+
+    private static final String COLUMN = "c0";
+
+    private long m_rows = 10000;
+    private int m_partitions = 4;
+    private int m_repetitions = 10;
+    private Pattern m_languages = Pattern.compile(".*");
+
+    @Override
+    public Object start(final IApplicationContext context) throws Exception {
+        parseArguments((String[]) context.getArguments()
+                .get(IApplicationContext.APPLICATION_ARGS));
+
+        final ExecutionContext exec = BenchmarkNodeModel
+                .createExecutionContext(new DefaultNodeProgressMonitor());
+        final BufferedDataTable table = SyntheticTables.createTable(exec,
+                SyntheticTables.createSpec(1, DoubleCell.TYPE), m_rows);
+        final List<DataRow> rows = new ArrayList<>();
+        for (final DataRow row : table) {
+            rows.add(row);
+        }
+
+        boolean failed = false;
+        final ExecutorService executor =
+                Executors.newFixedThreadPool(m_partitions);
+        try {
+            for (final String language : BenchmarkScripts.LANGUAGES) {
+                if (!m_languages.matcher(language).matches()) {
+                    continue;
+                }
+                final String script;
+                try {
+                    script = BenchmarkScripts.getRowScript(language, COLUMN);
+                } catch (final IllegalArgumentException e) {
+                    System.out.println(language + ": SKIPPED "
+                            + e.getMessage());
+                    continue;
+                }
+                for (final ColumnCreationMode mode : ColumnCreationMode
+                        .values()) {
+                    String result;
+                    try {
+                        result = runCase(language, script, mode, table, rows,
+                                executor);
+                    } catch (final Exception e) {
+                        result = "ERROR " + e;
+                        failed = true;
+                    }
+                    if (result.startsWith("MISMATCH")) {
+                        failed = true;
+                    }
+                    System.out.println(language + " " + mode + ": " + result);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return failed ? Integer.valueOf(1) : IApplication.EXIT_OK;
+    }
+
+    @Override
+    public void stop() {
+        /* tests can not be interrupted */
+    }
+
+    private void parseArguments(final String[] args) {
+        for (int i = 0; args != null && i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+            case "-rows":
+                m_rows = Long.parseLong(args[i + 1]);
+                break;
+            case "-partitions":
+                m_partitions = Integer.parseInt(args[i + 1]);
+                break;
+            case "-repetitions":
+                m_repetitions = Integer.parseInt(args[i + 1]);
+                break;
+            case "-languages":
+                m_languages = Pattern.compile(args[i + 1]);
+                break;
+            default:
+                System.err.println("Ignoring unknown argument " + args[i]);
+            }
+        }
+    }
+
+    /*
+     * Compare the output of a single partition to the outputs of concurrent
+     * partitions, repeatedly. Returns a description of the result.
+     */
+    private String runCase(final String language, final String script,
+            final ColumnCreationMode mode, final BufferedDataTable table,
+            final List<DataRow> rows, final ExecutorService executor)
+            throws Exception {
+        final SciJavaScriptingNodeSettings settings =
+                BenchmarkNodeModel.createSettings(language, script);
+        settings.setColumnCreationMode(mode);
+
+        final BenchmarkNodeModel model = new BenchmarkNodeModel();
+        try {
+            model.loadSettings(settings);
+            final DataTableSpec inSpec = table.getDataTableSpec();
+            model.configure(new DataTableSpec[] { inSpec });
+
+            final List<DataRow> expected = runPartition(model, inSpec, rows,
+                    new PartitionInfo(0, 1), null);
+            for (int r = 0; r < m_repetitions; ++r) {
+                final List<DataRow> actual =
+                        runPartitions(model, inSpec, rows, executor);
+                final String mismatch = compare(expected, actual);
+                if (mismatch != null) {
+                    return "MISMATCH in run " + r + ": " + mismatch;
+                }
+            }
+            return "OK (" + m_repetitions + " runs with " + m_partitions
+                    + " partitions)";
+        } finally {
+            model.dispose();
+        }
+    }
+
+    /*
+     * Split the rows into contiguous chunks, stream every chunk through its
+     * own partition and concatenate the outputs in order. All partitions are
+     * released at once so that they overlap as much as possible.
+     */
+    private List<DataRow> runPartitions(final BenchmarkNodeModel model,
+            final DataTableSpec inSpec, final List<DataRow> rows,
+            final ExecutorService executor) throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<List<DataRow>>> futures = new ArrayList<>();
+        final int chunk = (rows.size() + m_partitions - 1) / m_partitions;
+        for (int p = 0; p < m_partitions; ++p) {
+            final List<DataRow> partitionRows =
+                    rows.subList(Math.min(rows.size(), p * chunk),
+                            Math.min(rows.size(), (p + 1) * chunk));
+            final PartitionInfo info = new PartitionInfo(p, m_partitions);
+            futures.add(executor.submit(() -> runPartition(model, inSpec,
+                    partitionRows, info, start)));
+        }
+        start.countDown();
+
+        final List<DataRow> output = new ArrayList<>();
+        for (final Future<List<DataRow>> future : futures) {
+            output.addAll(future.get());
+        }
+        return output;
+    }
+
+    private static List<DataRow> runPartition(final BenchmarkNodeModel model,
+            final DataTableSpec inSpec, final List<DataRow> rows,
+            final PartitionInfo info, final CountDownLatch start)
+            throws Exception {
+        final StreamableOperator operator = model.createStreamableOperator(
+                info, new PortObjectSpec[] { inSpec });
+        final ExecutionContext exec = BenchmarkNodeModel
+                .createExecutionContext(new DefaultNodeProgressMonitor());
+        final ListRowOutput output = new ListRowOutput();
+        if (start != null) {
+            start.await();
+        }
+        operator.runFinal(
+                new PortInput[] { new ListRowInput(inSpec, rows) },
+                new PortOutput[] { output }, exec);
+        return output.getRows();
+    }
+
+    /*
+     * Returns a description of the first difference, null if the rows are
+     * equal.
+     */
+    private static String compare(final List<DataRow> expected,
+            final List<DataRow> actual) {
+        if (expected.size() != actual.size()) {
+            return "expected " + expected.size() + " rows, got "
+                    + actual.size();
+        }
+        for (int i = 0; i < expected.size(); ++i) {
+            final DataRow e = expected.get(i);
+            final DataRow a = actual.get(i);
+            if (!e.getKey().equals(a.getKey())
+                    || e.getNumCells() != a.getNumCells()) {
+                return "row " + i + " is " + a.getKey() + ", expected "
+                        + e.getKey();
+            }
+            for (int c = 0; c < e.getNumCells(); ++c) {
+                if (!e.getCell(c).equals(a.getCell(c))) {
+                    return "cell " + c + " of row " + e.getKey() + " is "
+                            + a.getCell(c) + ", expected " + e.getCell(c);
+                }
+            }
+        }
+        return null;
+    }
+
+    /*
+     * RowInput providing the rows of a list.
+     */
+    private static class ListRowInput extends RowInput {
+
+        private final DataTableSpec m_spec;
+        private final List<DataRow> m_rows;
+        private int m_next = 0;
+
+        public ListRowInput(final DataTableSpec spec,
+                final List<DataRow> rows) {
+            m_spec = spec;
+            m_rows = rows;
+        }
+
+        @Override
+        public DataTableSpec getDataTableSpec() {
+            return m_spec;
+        }
+
+        @Override
+        public DataRow poll() {
+            return (m_next < m_rows.size()) ? m_rows.get(m_next++) : null;
+        }
+
+        @Override
+        public void close() {
+            /* nothing to release */
+        }
+    }
+
+    /*
+     * RowOutput collecting the pushed rows in a list.
+     */
+    private static class ListRowOutput extends RowOutput {
+
+        private final List<DataRow> m_rows = new ArrayList<>();
+
+        @Override
+        public void push(final DataRow row) {
+            m_rows.add(row);
+        }
+
+        @Override
+        public void close() {
+            /* rows stay available */
+        }
+
+        public List<DataRow> getRows() {
+            return m_rows;
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package org.knime.scijava.scripting.benchmark;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.eclipse.equinox.app.IApplication;
+import org.eclipse.equinox.app.IApplicationContext;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.core.node.streamable.BufferedDataTableRowOutput;
+import org.knime.core.node.streamable.DataTableRowInput;
+import org.knime.core.node.streamable.PartitionInfo;
+import org.knime.core.node.streamable.PortInput;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.RowOutput;
+import org.knime.core.node.streamable.StreamableOperator;
+import org.knime.scijava.scripting.nodes.interactive.settings.ColumnCreationMode;
+import org.knime.scijava.scripting.nodes.interactive.settings.SciJavaScriptingNodeSettings;
+
+/**
+ * Headless application measuring the throughput of the scripting node on a
+ * generated table. The node model is configured and executed for every
+ * available language, both {@link ColumnCreationMode}s and both the
+ * execute and the streaming path. Results are printed as JSON.
+ * <p>
+ * Run with
+ * <code>knime -nosplash -consoleLog -application
+ * org.knime.scijava.scripting.benchmark.throughput</code> and optionally
+ * <code>-rows &lt;rows&gt; -columns &lt;columns&gt;
+ * -types &lt;double,int,long,string,boolean&gt; -warmup &lt;executions&gt;
+ * -repetitions &lt;executions&gt; -languages &lt;regex&gt;
+ * -output &lt;file&gt;</code>.
+ * </p>
+ * <p>
+ * Per-row latencies are the intervals between consecutive rows: on the
+ * execute path they are taken from the cancellation checks, which the node
+ * performs once per row, on the streaming path from the rows pushed to the
+ * output. The allocation rate only includes allocations of the executing
+ * thread.
+ * </p>
+ */
+public class ScriptingThroughputBenchmark implements IApplication {
+
+    private static final String EXECUTE = "execute";
+    private static final String STREAMING = "streaming";
+
+    private long m_rows = 100000;
+    private int m_columns = 3;
+    private String[] m_typeNames = { "double" };
+    private int m_warmup = 2;
+    private int m_repetitions = 5;
+    private Pattern m_languages = Pattern.compile(".*");
+    private String m_output = null;
+
+    @Override
+    public Object start(final IApplicationContext context) throws Exception {
+        parseArguments((String[]) context.getArguments()
+                .get(IApplicationContext.APPLICATION_ARGS));
+
+        final DataType[] types = new DataType[m_typeNames.length];
+        for (int i = 0; i < types.length; ++i) {
+            types[i] = SyntheticTables.getType(m_typeNames[i]);
+        }
+
+        final LatencyRecordingProgressMonitor monitor =
+                new LatencyRecordingProgressMonitor();
+        final ExecutionContext exec =
+                BenchmarkNodeModel.createExecutionContext(monitor);
+        final BufferedDataTable table = SyntheticTables.createTable(exec,
+                SyntheticTables.createSpec(m_columns, types), m_rows);
+
+        final List<String> results = new ArrayList<>();
+        for (final String language : BenchmarkScripts.LANGUAGES) {
+            if (!m_languages.matcher(language).matches()) {
+                continue;
+            }
+            for (final ColumnCreationMode mode : ColumnCreationMode.values()) {
+                for (final String path : new String[] { EXECUTE,
+                        STREAMING }) {
+                    final String name = "{\"language\":" + quote(language)
+                            + ",\"mode\":" + quote(mode.name()) + ",\"path\":"
+                            + quote(path);
+                    try {
+                        results.add(name + runCase(language, mode,
+                                STREAMING.equals(path), table, exec, monitor)
+                                + "}");
+                    } catch (final Exception e) {
+                        results.add(name + ",\"error\":"
+                                + quote(e.toString()) + "}");
+                    }
+                }
+            }
+        }
+
+        final StringBuilder json = new StringBuilder();
+        json.append("{\"rows\":").append(m_rows);
+        json.append(",\"columns\":").append(m_columns);
+        json.append(",\"types\":[");
+        for (int i = 0; i < m_typeNames.length; ++i) {
+            json.append(i == 0 ? "" : ",").append(quote(m_typeNames[i]));
+        }
+        json.append("],\"repetitions\":").append(m_repetitions);
+        json.append(",\"results\":[\n");
+        for (int i = 0; i < results.size(); ++i) {
+            json.append(i == 0 ? "" : ",\n").append(results.get(i));
+        }
+        json.append("\n]}");
+
+        if (m_output == null) {
+            System.out.println(json);
+        } else {
+            try (final PrintStream out = new PrintStream(m_output, "UTF-8")) {
+                out.println(json);
+            }
+        }
+        return IApplication.EXIT_OK;
+    }
+
+    @Override
+    public void stop() {
+        /* benchmarks can not be interrupted */
+    }
+
+    private void parseArguments(final String[] args) {
+        for (int i = 0; args != null && i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+            case "-rows":
+                m_rows = Long.parseLong(args[i + 1]);
+                break;
+            case "-columns":
+                m_columns = Integer.parseInt(args[i + 1]);
+                break;
+            case "-types":
+                m_typeNames = args[i + 1].split(",");
+                break;
+            case "-warmup":
+                m_warmup = Integer.parseInt(args[i + 1]);
+                break;
+            case "-repetitions":
+                m_repetitions = Integer.parseInt(args[i + 1]);
+                break;
+            case "-languages":
+                m_languages = Pattern.compile(args[i + 1]);
+                break;
+            case "-output":
+                m_output = args[i + 1];
+                break;
+            default:
+                System.err.println("Ignoring unknown argument " + args[i]);
+            }
+        }
+    }
+
+    /*
+     * Configure a node for the given case, execute it and return the
+     * measured values as JSON members.
+     */
+    private String runCase(final String language,
+            final ColumnCreationMode mode, final boolean streaming,
+            final BufferedDataTable table, final ExecutionContext exec,
+            final LatencyRecordingProgressMonitor monitor) throws Exception {
+        final SciJavaScriptingNodeSettings settings = BenchmarkNodeModel
+                .createSettings(language, BenchmarkScripts.getScript(language));
+        settings.setColumnCreationMode(mode);
+
+        final BenchmarkNodeModel model = new BenchmarkNodeModel();
+        try {
+            model.loadSettings(settings);
+            final DataTableSpec outSpec = model.configure(
+                    new DataTableSpec[] { table.getDataTableSpec() })[0];
+
+            for (int i = 0; i < m_warmup; ++i) {
+                executeOnce(model, streaming, table, outSpec, exec, null);
+            }
+
+            final LatencyRecorder recorder = new LatencyRecorder();
+            if (!streaming) {
+                monitor.setRecorder(recorder);
+            }
+            System.gc();
+            resetPeakHeap();
+
+            long nanos = 0;
+            long allocated = 0;
+            for (int i = 0; i < m_repetitions; ++i) {
+                final long allocatedBefore = getAllocatedBytes();
+                final long start = System.nanoTime();
+                recorder.start();
+                executeOnce(model, streaming, table, outSpec, exec,
+                        streaming ? recorder : null);
+                recorder.stop();
+                nanos += System.nanoTime() - start;
+                allocated = (allocatedBefore < 0 || allocated < 0) ? -1
+                        : allocated + getAllocatedBytes() - allocatedBefore;
+            }
+            monitor.setRecorder(null);
+
+            final double seconds = (double) nanos / TimeUnit.SECONDS.toNanos(1);
+            return String.format(Locale.ROOT,
+                    ",\"rowsPerSecond\":%.1f,\"p50LatencyNanos\":%d"
+                            + ",\"p99LatencyNanos\":%d,\"peakHeapBytes\":%d"
+                            + ",\"allocationBytesPerSecond\":%s",
+                    m_rows * m_repetitions / seconds,
+                    recorder.getPercentile(50), recorder.getPercentile(99),
+                    getPeakHeap(), (allocated < 0) ? "null"
+                            : String.format(Locale.ROOT, "%.1f",
+                                    allocated / seconds));
+        } finally {
+            monitor.setRecorder(null);
+            model.dispose();
+        }
+    }
+
+    /*
+     * Execute the node once and clear the output table.
+     */
+    private static void executeOnce(final BenchmarkNodeModel model,
+            final boolean streaming, final BufferedDataTable table,
+            final DataTableSpec outSpec, final ExecutionContext exec,
+            final LatencyRecorder recorder) throws Exception {
+        if (!streaming) {
+            exec.clearTable(
+                    model.execute(new BufferedDataTable[] { table }, exec)[0]);
+            return;
+        }
+
+        final StreamableOperator operator = model.createStreamableOperator(
+                new PartitionInfo(0, 1),
+                new PortObjectSpec[] { table.getDataTableSpec() });
+        final BufferedDataTableRowOutput output =
+                new BufferedDataTableRowOutput(
+                        exec.createDataContainer(outSpec));
+        operator.runFinal(new PortInput[] { new DataTableRowInput(table) },
+                new PortOutput[] { new RecordingRowOutput(output, recorder) },
+                exec);
+        exec.clearTable(output.getDataTable());
+    }
+
+    private static void resetPeakHeap() {
+        for (final MemoryPoolMXBean pool : ManagementFactory
+                .getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long getPeakHeap() {
+        long peak = 0;
+        for (final MemoryPoolMXBean pool : ManagementFactory
+                .getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    /*
+     * Bytes allocated by the current thread so far, -1 if not supported by
+     * the JVM. Queried through the MBean server, since the extended
+     * ThreadMXBean interface is not visible to bundles.
+     */
+    private static long getAllocatedBytes() {
+        try {
+            final Object bytes = ManagementFactory.getPlatformMBeanServer()
+                    .invoke(new ObjectName(
+                            ManagementFactory.THREAD_MXBEAN_NAME),
+                            "getThreadAllocatedBytes",
+                            new Object[] { Thread.currentThread().getId() },
+                            new String[] { long.class.getName() });
+            return (bytes instanceof Long) ? (Long) bytes : -1;
+        } catch (final JMException e) {
+            return -1;
+        }
+    }
+
+    private static String quote(final String value) {
+        final StringBuilder quoted = new StringBuilder("\"");
+        for (final char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    /*
+     * Progress monitor marking the latency recorder on every cancellation
+     * check.
+     */
+    private static class LatencyRecordingProgressMonitor
+            extends DefaultNodeProgressMonitor {
+
+        private volatile LatencyRecorder m_recorder;
+
+        public void setRecorder(final LatencyRecorder recorder) {
+            m_recorder = recorder;
+        }
+
+        @Override
+        public void checkCanceled() throws CanceledExecutionException {
+            super.checkCanceled();
+            final LatencyRecorder recorder = m_recorder;
+            if (recorder != null) {
+                recorder.mark();
+            }
+        }
+    }
+
+    /*
+     * RowOutput marking the latency recorder for every pushed row.
+     */
+    private static class RecordingRowOutput extends RowOutput {
+
+        private final RowOutput m_delegate;
+        private final LatencyRecorder m_recorder;
+
+        public RecordingRowOutput(final RowOutput delegate,
+                final LatencyRecorder recorder) {
+            m_delegate = delegate;
+            m_recorder = recorder;
+        }
+
+        @Override
+        public void push(final DataRow row) throws InterruptedException {
+            m_delegate.push(row);
+            if (m_recorder != null) {
+                m_recorder.mark();
+            }
+        }
+
+        @Override
+        public void close() throws InterruptedException {
+            m_delegate.close();
+        }
+    }
+}
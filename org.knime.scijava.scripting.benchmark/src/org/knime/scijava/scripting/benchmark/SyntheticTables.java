@@ -0,0 +1,136 @@
+package org.knime.scijava.scripting.benchmark;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.BooleanCell;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.ExecutionContext;
+
+/**
+ * Creates table specs and rows with generated values, so that benchmarks do
+ * not depend on input data or a running workflow.
+ */
+public class SyntheticTables {
+
+    private SyntheticTables() {
+        // NB Utility class
+    }
+
+    /**
+     * Create a spec with columns named <code>c0</code>, <code>c1</code>, ...
+     *
+     * @param columns
+     *            number of columns
+     * @param types
+     *            types of the columns, repeated if there are more columns
+     *            than types. Supported are the types of {@link DoubleCell},
+     *            {@link IntCell}, {@link LongCell}, {@link StringCell} and
+     *            {@link BooleanCell}.
+     * @return the spec
+     */
+    public static DataTableSpec createSpec(final int columns,
+            final DataType... types) {
+        final DataColumnSpec[] specs = new DataColumnSpec[columns];
+        for (int i = 0; i < columns; ++i) {
+            specs[i] = new DataColumnSpecCreator("c" + i,
+                    types[i % types.length]).createSpec();
+        }
+        return new DataTableSpec(specs);
+    }
+
+    /**
+     * Create a table with generated rows.
+     *
+     * @param exec
+     *            execution context used to create the table
+     * @param spec
+     *            spec created by {@link #createSpec(int, DataType...)}
+     * @param rows
+     *            number of rows
+     * @return the table
+     */
+    public static BufferedDataTable createTable(final ExecutionContext exec,
+            final DataTableSpec spec, final long rows) {
+        final BufferedDataContainer container =
+                exec.createDataContainer(spec);
+        for (long i = 0; i < rows; ++i) {
+            container.addRowToTable(createRow(spec, i));
+        }
+        container.close();
+        return container.getTable();
+    }
+
+    /**
+     * Get the column type for a name as used on the command line.
+     *
+     * @param name
+     *            one of <code>double</code>, <code>int</code>,
+     *            <code>long</code>, <code>string</code> and
+     *            <code>boolean</code>
+     * @return the type
+     * @throws IllegalArgumentException
+     *             if there is no type with the given name
+     */
+    public static DataType getType(final String name) {
+        switch (name) {
+        case "double":
+            return DoubleCell.TYPE;
+        case "int":
+            return IntCell.TYPE;
+        case "long":
+            return LongCell.TYPE;
+        case "string":
+            return StringCell.TYPE;
+        case "boolean":
+            return BooleanCell.TYPE;
+        default:
+            throw new IllegalArgumentException(
+                    "Unknown column type " + name + ".");
+        }
+    }
+
+    /**
+     * Create the row with the given index.
+     *
+     * @param spec
+     *            spec created by {@link #createSpec(int, DataType...)}
+     * @param index
+     *            index of the row, determines key and values
+     * @return the row
+     */
+    public static DataRow createRow(final DataTableSpec spec,
+            final long index) {
+        final DataCell[] cells = new DataCell[spec.getNumColumns()];
+        for (int i = 0; i < cells.length; ++i) {
+            cells[i] = createCell(spec.getColumnSpec(i).getType(), index + i);
+        }
+        return new DefaultRow(RowKey.createRowKey(index), cells);
+    }
+
+    private static DataCell createCell(final DataType type, final long value) {
+        if (type.equals(DoubleCell.TYPE)) {
+            return new DoubleCell(value * 0.5);
+        } else if (type.equals(IntCell.TYPE)) {
+            return new IntCell((int) value);
+        } else if (type.equals(LongCell.TYPE)) {
+            return new LongCell(value);
+        } else if (type.equals(StringCell.TYPE)) {
+            return new StringCell("value " + value);
+        } else if (type.equals(BooleanCell.TYPE)) {
+            return (value % 2 == 0) ? BooleanCell.TRUE : BooleanCell.FALSE;
+        }
+        throw new IllegalArgumentException(
+                "Cannot generate cells of type " + type + ".");
+    }
+}
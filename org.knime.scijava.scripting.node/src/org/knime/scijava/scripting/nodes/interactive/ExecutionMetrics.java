@@ -0,0 +1,324 @@
+package org.knime.scijava.scripting.nodes.interactive;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+
+/**
+ * Performance metrics of the last execution of a
+ * {@link SciJavaScriptingNodeModel}: time spent compiling the script and
+ * creating contexts and modules, the time every row spent in the
+ * {@link Phase}s of a module run, and the number of processed rows and
+ * created cells. All methods may be called concurrently. Counters are
+ * {@link LongAdder}s, so that concurrently executing modules do not contend
+ * on the same memory. The phases of single rows are only timed for every
+ * {@link #TIMING_SAMPLE_INTERVAL}th row, see {@link #isTimed(long)}.
+ */
+public class ExecutionMetrics {
+
+    /**
+     * Phases of running a module for a row.
+     */
+    public enum Phase {
+        /** Input binding and preprocessors */
+        PREPROCESS("Preprocess"),
+        /** Execution of the script */
+        RUN("Run"),
+        /** Postprocessors */
+        POSTPROCESS("Postprocess"),
+        /** Creation of the output cells */
+        CONVERT("Convert");
+
+        private final String m_label;
+
+        Phase(final String label) {
+            m_label = label;
+        }
+
+        @Override
+        public String toString() {
+            return m_label;
+        }
+    }
+
+    /** Interval of the rows whose phases are timed */
+    public static final int TIMING_SAMPLE_INTERVAL = 16;
+
+    private final Map<Phase, TimingHistogram> m_phases =
+            new EnumMap<>(Phase.class);
+
+    /* duration of the last compilation, kept over executions */
+    private volatile long m_compileNanos = -1;
+
+    private final LongAdder m_contextNanos = new LongAdder();
+    private final LongAdder m_moduleNanos = new LongAdder();
+    private final LongAdder m_rows = new LongAdder();
+    private final LongAdder m_cells = new LongAdder();
+    private final LongAdder m_missingCells = new LongAdder();
+    private final LongAdder m_memoizationHits = new LongAdder();
+    private final LongAdder m_memoizationMisses = new LongAdder();
+
+    private volatile long m_startNanos = -1;
+    private volatile long m_executionNanos = -1;
+
+    /**
+     * Constructor.
+     */
+    public ExecutionMetrics() {
+        for (final Phase phase : Phase.values()) {
+            m_phases.put(phase, new TimingHistogram());
+        }
+    }
+
+    /**
+     * Clear the metrics of the last execution and start measuring the
+     * execution time. The compile time is kept, since the script is usually
+     * compiled before execution.
+     */
+    public void startExecution() {
+        for (final TimingHistogram histogram : m_phases.values()) {
+            histogram.clear();
+        }
+        m_contextNanos.reset();
+        m_moduleNanos.reset();
+        m_rows.reset();
+        m_cells.reset();
+        m_missingCells.reset();
+        m_memoizationHits.reset();
+        m_memoizationMisses.reset();
+        m_executionNanos = -1;
+        m_startNanos = System.nanoTime();
+    }
+
+    /**
+     * Stop measuring the execution time.
+     */
+    public void finishExecution() {
+        if (m_startNanos >= 0) {
+            m_executionNanos = System.nanoTime() - m_startNanos;
+        }
+    }
+
+    /**
+     * Clear the metrics of the last execution. The compile time is kept.
+     */
+    public void clear() {
+        startExecution();
+        m_startNanos = -1;
+    }
+
+    /**
+     * @param nanos
+     *            duration of the last compilation of the script
+     */
+    public void setCompileTime(final long nanos) {
+        m_compileNanos = nanos;
+    }
+
+    /**
+     * @param nanos
+     *            duration of creating a context, added to the total
+     */
+    public void addContextCreation(final long nanos) {
+        m_contextNanos.add(nanos);
+    }
+
+    /**
+     * @param nanos
+     *            duration of creating a module, added to the total
+     */
+    public void addModuleCreation(final long nanos) {
+        m_moduleNanos.add(nanos);
+    }
+
+    /**
+     * Whether the phases of a row are timed. Only every
+     * {@link #TIMING_SAMPLE_INTERVAL}th row is timed, which keeps the cost of
+     * reading the clock and recording the durations low.
+     *
+     * @param rowIndex
+     *            index of the row in the rows processed by the caller
+     * @return whether to time the phases of the row
+     */
+    public static boolean isTimed(final long rowIndex) {
+        return rowIndex % TIMING_SAMPLE_INTERVAL == 0;
+    }
+
+    /**
+     * Record the duration of a phase for a row or batch of rows.
+     *
+     * @param phase
+     *            the phase
+     * @param nanos
+     *            the duration in nanoseconds
+     */
+    public void record(final Phase phase, final long nanos) {
+        m_phases.get(phase).record(nanos);
+    }
+
+    /**
+     * Count a processed row and the cells created for it.
+     *
+     * @param cells
+     *            output cells of the row
+     */
+    public void recordOutput(final DataCell[] cells) {
+        m_rows.increment();
+        m_cells.add(cells.length);
+
+        int missing = 0;
+        for (final DataCell cell : cells) {
+            if (cell != null && cell.isMissing()) {
+                ++missing;
+            }
+        }
+        if (missing > 0) {
+            m_missingCells.add(missing);
+        }
+    }
+
+    /**
+     * Count an output row and its cells, without copying the cells.
+     *
+     * @param row
+     *            the output row
+     */
+    public void recordOutput(final DataRow row) {
+        m_rows.increment();
+        m_cells.add(row.getNumCells());
+
+        int missing = 0;
+        for (int i = 0; i < row.getNumCells(); ++i) {
+            if (row.getCell(i).isMissing()) {
+                ++missing;
+            }
+        }
+        if (missing > 0) {
+            m_missingCells.add(missing);
+        }
+    }
+
+    /**
+     * Count a lookup of a row in the memoized results.
+     *
+     * @param hit
+     *            whether the results of the row were memoized
+     */
+    public void recordMemoization(final boolean hit) {
+        if (hit) {
+            m_memoizationHits.increment();
+        } else {
+            m_memoizationMisses.increment();
+        }
+    }
+
+    /**
+     * @return whether an execution was measured since the last
+     *         {@link #clear()}
+     */
+    public boolean isAvailable() {
+        return m_startNanos >= 0;
+    }
+
+    /**
+     * @param phase
+     *            the phase
+     * @return durations of the phase, recorded per timed row or per batch of
+     *         rows
+     */
+    public TimingHistogram getHistogram(final Phase phase) {
+        return m_phases.get(phase);
+    }
+
+    /**
+     * @return duration of the last compilation in nanoseconds, -1 if the
+     *         script was not compiled
+     */
+    public long getCompileTime() {
+        return m_compileNanos;
+    }
+
+    /**
+     * @return total duration of creating contexts in nanoseconds
+     */
+    public long getContextCreationTime() {
+        return m_contextNanos.sum();
+    }
+
+    /**
+     * @return total duration of creating modules in nanoseconds
+     */
+    public long getModuleCreationTime() {
+        return m_moduleNanos.sum();
+    }
+
+    /**
+     * @return duration of the execution in nanoseconds, the time since the
+     *         start if the execution did not finish yet.
+     */
+    public long getExecutionTime() {
+        final long executionNanos = m_executionNanos;
+        if (executionNanos >= 0) {
+            return executionNanos;
+        }
+        return (m_startNanos < 0) ? 0 : System.nanoTime() - m_startNanos;
+    }
+
+    /**
+     * @return number of processed rows
+     */
+    public long getRows() {
+        return m_rows.sum();
+    }
+
+    /**
+     * @return number of created output cells
+     */
+    public long getCells() {
+        return m_cells.sum();
+    }
+
+    /**
+     * @return number of created missing output cells
+     */
+    public long getMissingCells() {
+        return m_missingCells.sum();
+    }
+
+    /**
+     * @return number of rows whose results were memoized
+     */
+    public long getMemoizationHits() {
+        return m_memoizationHits.sum();
+    }
+
+    /**
+     * @return number of rows looked up in the memoized results
+     */
+    public long getMemoizationLookups() {
+        return m_memoizationHits.sum() + m_memoizationMisses.sum();
+    }
+
+    /**
+     * @return fraction of the looked up rows whose results were memoized, 0
+     *         if no rows were looked up
+     */
+    public double getMemoizationHitRate() {
+        final long lookups = getMemoizationLookups();
+        return (lookups == 0) ? 0
+                : m_memoizationHits.sum() / (double) lookups;
+    }
+
+    /**
+     * @return processed rows per second of execution time
+     */
+    public double getRowsPerSecond() {
+        final long nanos = getExecutionTime();
+        return (nanos <= 0) ? 0
+                : m_rows.sum() * (double) TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+}
@@ -0,0 +1,147 @@
+package org.knime.scijava.scripting.nodes.interactive;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.knime.core.data.BooleanValue;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.IntValue;
+import org.knime.core.data.LongValue;
+import org.knime.core.data.StringValue;
+import org.knime.core.data.def.BooleanCell;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * Conversion between the basic KNIME cells ({@link DoubleCell},
+ * {@link IntCell}, {@link LongCell}, {@link StringCell} and
+ * {@link BooleanCell}) and their Java counterparts. Missing cells are
+ * converted to <code>null</code> and vice versa.
+ */
+public class PrimitiveCellConverters {
+
+    private static final Map<Class<?>, DataType> TYPES = new HashMap<>();
+
+    static {
+        TYPES.put(double.class, DoubleCell.TYPE);
+        TYPES.put(Double.class, DoubleCell.TYPE);
+        TYPES.put(float.class, DoubleCell.TYPE);
+        TYPES.put(Float.class, DoubleCell.TYPE);
+        TYPES.put(int.class, IntCell.TYPE);
+        TYPES.put(Integer.class, IntCell.TYPE);
+        TYPES.put(long.class, LongCell.TYPE);
+        TYPES.put(Long.class, LongCell.TYPE);
+        TYPES.put(boolean.class, BooleanCell.TYPE);
+        TYPES.put(Boolean.class, BooleanCell.TYPE);
+        TYPES.put(String.class, StringCell.TYPE);
+    }
+
+    private PrimitiveCellConverters() {
+        // NB Utility class
+    }
+
+    /**
+     * @param type
+     *            a Java type
+     * @return the type of the cells created for values of the given type or
+     *         <code>null</code> if the type is not supported.
+     */
+    public static DataType getDataType(final Class<?> type) {
+        return TYPES.get(type);
+    }
+
+    /**
+     * Get a converter from cells to values of the given Java type. The
+     * converter is chosen once, so that converting a value does not need to
+     * look at its type again.
+     *
+     * @param type
+     *            the type to convert to, one of the supported types or
+     *            {@link Object} to choose a type depending on the cell.
+     * @return the converter or <code>null</code> if the type is not
+     *         supported. Missing cells are converted to <code>null</code>.
+     */
+    public static Function<DataCell, Object> getValueConverter(
+            final Class<?> type) {
+        if (type == double.class || type == Double.class) {
+            return c -> c.isMissing() ? null
+                    : ((DoubleValue) c).getDoubleValue();
+        } else if (type == float.class || type == Float.class) {
+            return c -> c.isMissing() ? null
+                    : (float) ((DoubleValue) c).getDoubleValue();
+        } else if (type == int.class || type == Integer.class) {
+            return c -> c.isMissing() ? null : ((IntValue) c).getIntValue();
+        } else if (type == long.class || type == Long.class) {
+            return c -> c.isMissing() ? null : ((LongValue) c).getLongValue();
+        } else if (type == boolean.class || type == Boolean.class) {
+            return c -> c.isMissing() ? null
+                    : ((BooleanValue) c).getBooleanValue();
+        } else if (type == String.class) {
+            return c -> c.isMissing() ? null
+                    : ((StringValue) c).getStringValue();
+        } else if (type == Object.class) {
+            return PrimitiveCellConverters::toObject;
+        }
+        return null;
+    }
+
+    /**
+     * Get a converter from Java values to cells of the given type.
+     *
+     * @param type
+     *            the type of the cells to create, as returned by
+     *            {@link #getDataType(Class)}
+     * @return the converter or <code>null</code> if the type is not
+     *         supported. <code>null</code> is converted to a missing cell.
+     */
+    public static Function<Object, DataCell> getCellConverter(
+            final DataType type) {
+        if (type.equals(DoubleCell.TYPE)) {
+            return v -> v == null ? DataType.getMissingCell()
+                    : new DoubleCell(((Number) v).doubleValue());
+        } else if (type.equals(IntCell.TYPE)) {
+            return v -> v == null ? DataType.getMissingCell()
+                    : new IntCell(((Number) v).intValue());
+        } else if (type.equals(LongCell.TYPE)) {
+            return v -> v == null ? DataType.getMissingCell()
+                    : new LongCell(((Number) v).longValue());
+        } else if (type.equals(BooleanCell.TYPE)) {
+            return v -> v == null ? DataType.getMissingCell()
+                    : ((Boolean) v) ? BooleanCell.TRUE : BooleanCell.FALSE;
+        } else if (type.equals(StringCell.TYPE)) {
+            return v -> v == null ? DataType.getMissingCell()
+                    : new StringCell(v.toString());
+        }
+        return null;
+    }
+
+    /*
+     * Convert a cell to the Java type matching its value.
+     */
+    private static Object toObject(final DataCell cell) {
+        if (cell.isMissing()) {
+            return null;
+        }
+
+        // NB: BooleanCell implements IntValue, IntCell implements LongValue
+        // and so on, check the most specific value first.
+        if (cell instanceof BooleanValue) {
+            return ((BooleanValue) cell).getBooleanValue();
+        } else if (cell instanceof IntValue) {
+            return ((IntValue) cell).getIntValue();
+        } else if (cell instanceof LongValue) {
+            return ((LongValue) cell).getLongValue();
+        } else if (cell instanceof DoubleValue) {
+            return ((DoubleValue) cell).getDoubleValue();
+        } else if (cell instanceof StringValue) {
+            return ((StringValue) cell).getStringValue();
+        }
+        throw new IllegalArgumentException(
+                "Cannot convert cell of type " + cell.getType() + ".");
+    }
+}
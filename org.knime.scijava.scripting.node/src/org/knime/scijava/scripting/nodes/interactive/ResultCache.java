@@ -0,0 +1,216 @@
+package org.knime.scijava.scripting.nodes.interactive;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.StringValue;
+import org.knime.core.data.collection.CollectionDataValue;
+import org.knime.core.data.container.BlobDataCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.data.filestore.FileStoreCell;
+
+/**
+ * Bounded least recently used cache for the output cells of a script, keyed
+ * by the input cells the script reads. The cache holds at most a number of
+ * entries and an estimated number of bytes. The cache is not thread safe,
+ * every cell factory owns its cache.
+ * <p>
+ * Blob and file store cells are neither used as keys nor cached: comparing
+ * them would load their content, and they are stored with the table they
+ * were created for anyway. Rows containing them are executed as usual.
+ * </p>
+ * <p>
+ * The key of a row contains its row key if the script reads it, so results
+ * are then only reused for the same row, e.g. in the next iteration of a
+ * loop.
+ * </p>
+ */
+public class ResultCache {
+
+    /** Default maximum number of entries */
+    public static final int DEFAULT_MAX_ENTRIES = 16 * 1024;
+
+    /** Default maximum estimated size of all entries in bytes */
+    public static final long DEFAULT_MAX_BYTES = 16 * 1024 * 1024;
+
+    /* rough estimates of the heap used per entry and per cell */
+    private static final long ENTRY_BYTES = 96;
+    private static final long CELL_BYTES = 32;
+
+    private final int m_maxEntries;
+    private final long m_maxBytes;
+
+    private final LinkedHashMap<List<DataCell>, Entry> m_entries =
+            new LinkedHashMap<>(16, 0.75f, true);
+    private long m_bytes = 0;
+
+    private static class Entry {
+        final DataCell[] m_cells;
+        final long m_bytes;
+
+        Entry(final DataCell[] cells, final long bytes) {
+            m_cells = cells;
+            m_bytes = bytes;
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxEntries
+     *            maximum number of entries
+     * @param maxBytes
+     *            maximum estimated size of all entries in bytes
+     */
+    public ResultCache(final int maxEntries, final long maxBytes) {
+        m_maxEntries = maxEntries;
+        m_maxBytes = maxBytes;
+    }
+
+    /**
+     * Create the key for a row.
+     *
+     * @param row
+     *            the input row
+     * @param columns
+     *            indices of the columns the script reads, <code>null</code>
+     *            for all columns
+     * @return the key, <code>null</code> if the row can not be memoized
+     */
+    public static List<DataCell> createKey(final DataRow row,
+            final int[] columns) {
+        return createKey(row, columns, false);
+    }
+
+    /**
+     * Create the key for a row.
+     *
+     * @param row
+     *            the input row
+     * @param columns
+     *            indices of the columns the script reads, <code>null</code>
+     *            for all columns
+     * @param withRowKey
+     *            whether the script reads the row key, which is then added to
+     *            the key
+     * @return the key, <code>null</code> if the row can not be memoized
+     */
+    public static List<DataCell> createKey(final DataRow row,
+            final int[] columns, final boolean withRowKey) {
+        final int count = (columns == null) ? row.getNumCells()
+                : columns.length;
+        final DataCell[] key = new DataCell[withRowKey ? count + 1 : count];
+        for (int i = 0; i < count; ++i) {
+            key[i] = row.getCell((columns == null) ? i : columns[i]);
+            if (isLarge(key[i])) {
+                return null;
+            }
+        }
+        if (withRowKey) {
+            key[count] = new StringCell(row.getKey().getString());
+        }
+        return Arrays.asList(key);
+    }
+
+    /**
+     * @param key
+     *            key created by {@link #createKey(DataRow, int[])}
+     * @return a copy of the cached output cells, <code>null</code> if not
+     *         cached
+     */
+    public DataCell[] get(final List<DataCell> key) {
+        final Entry entry = m_entries.get(key);
+        return (entry == null) ? null : entry.m_cells.clone();
+    }
+
+    /**
+     * Cache the output cells for a key, evicting the least recently used
+     * entries to stay within the bounds. Outputs which can not be cached are
+     * ignored.
+     *
+     * @param key
+     *            key created by {@link #createKey(DataRow, int[])}
+     * @param cells
+     *            the output cells
+     */
+    public void put(final List<DataCell> key, final DataCell[] cells) {
+        final long keyBytes = estimateBytes(key);
+        final long cellBytes = estimateBytes(Arrays.asList(cells));
+        if (keyBytes < 0 || cellBytes < 0) {
+            return;
+        }
+        final long bytes = ENTRY_BYTES + keyBytes + cellBytes;
+        if (bytes > m_maxBytes) {
+            return;
+        }
+
+        final Entry previous =
+                m_entries.put(key, new Entry(cells.clone(), bytes));
+        if (previous != null) {
+            m_bytes -= previous.m_bytes;
+        }
+        m_bytes += bytes;
+
+        final Iterator<Entry> eldest = m_entries.values().iterator();
+        while (m_entries.size() > m_maxEntries || m_bytes > m_maxBytes) {
+            m_bytes -= eldest.next().m_bytes;
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Remove all entries.
+     */
+    public void clear() {
+        m_entries.clear();
+        m_bytes = 0;
+    }
+
+    /**
+     * @return number of cached entries
+     */
+    public int size() {
+        return m_entries.size();
+    }
+
+    /**
+     * @return estimated size of all entries in bytes
+     */
+    public long getBytes() {
+        return m_bytes;
+    }
+
+    /*
+     * Estimate the heap used by the cells, -1 if any cell must not be cached.
+     */
+    private static long estimateBytes(final Iterable<DataCell> cells) {
+        long bytes = 0;
+        for (final DataCell cell : cells) {
+            if (cell == null || isLarge(cell)) {
+                return -1;
+            }
+            if (cell instanceof CollectionDataValue) {
+                final long elements =
+                        estimateBytes((CollectionDataValue) cell);
+                if (elements < 0) {
+                    return -1;
+                }
+                bytes += CELL_BYTES + elements;
+            } else if (cell instanceof StringValue) {
+                bytes += CELL_BYTES
+                        + 2L * ((StringValue) cell).getStringValue().length();
+            } else {
+                bytes += CELL_BYTES;
+            }
+        }
+        return bytes;
+    }
+
+    private static boolean isLarge(final DataCell cell) {
+        return cell instanceof BlobDataCell || cell instanceof FileStoreCell;
+    }
+}
@@ -0,0 +1,257 @@
+package org.knime.scijava.scripting.nodes.interactive;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.util.ThreadUtils;
+
+/**
+ * Processes rows in three stages running on separate threads: a reader
+ * decoding the cells of the input rows, the processing on the calling
+ * thread and a writer adding the output rows to a container. The reader and
+ * writer run on dedicated threads: the calling thread usually is a thread of
+ * the {@link KNIMEConstants#GLOBAL_THREAD_POOL} already, stages queued in a
+ * saturated pool would never start. The stages are connected by bounded
+ * queues, so a slow stage blocks the stage before it and at most twice the
+ * capacity of rows is held in memory.
+ */
+public class RowPipeline {
+
+    /* interval of cancellation checks while waiting for another stage */
+    private static final long CANCEL_CHECK_MILLIS = 100;
+
+    /* marks the end of the rows in a queue, compared by identity */
+    private static final DataRow END =
+            new DefaultRow("end of pipeline", new DataCell[0]);
+
+    private final int m_capacity;
+
+    /* columns the reader decodes, null for all columns */
+    private final int[] m_columns;
+
+    private volatile Throwable m_readFailure;
+    private volatile Throwable m_writeFailure;
+
+    /**
+     * Function processing a single row on the calling thread.
+     */
+    public interface RowProcessor {
+
+        /**
+         * @param row
+         *            the input row with decoded cells
+         * @return the output row
+         * @throws Exception
+         *             if the row could not be processed
+         */
+        DataRow process(DataRow row) throws Exception;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param capacity
+     *            number of rows each of the queues between the stages holds
+     */
+    public RowPipeline(final int capacity) {
+        this(capacity, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param capacity
+     *            number of rows each of the queues between the stages holds
+     * @param columns
+     *            indices of the columns the reader decodes, <code>null</code>
+     *            for all columns
+     */
+    public RowPipeline(final int capacity, final int[] columns) {
+        m_capacity = capacity;
+        m_columns = columns;
+    }
+
+    /**
+     * Process all rows of the input and add the results to the container,
+     * which is closed afterwards. Returns when all rows were written or any
+     * of the stages failed.
+     *
+     * @param input
+     *            rows to process
+     * @param processor
+     *            function processing the rows on the calling thread
+     * @param container
+     *            container for the output rows
+     * @param exec
+     *            execution context to check for cancellation
+     * @throws Exception
+     *             the first exception thrown by any of the stages
+     */
+    public void run(final Iterable<DataRow> input,
+            final RowProcessor processor,
+            final BufferedDataContainer container, final ExecutionContext exec)
+            throws Exception {
+        final BlockingQueue<DataRow> readQueue =
+                new ArrayBlockingQueue<>(m_capacity);
+        final BlockingQueue<DataRow> writeQueue =
+                new ArrayBlockingQueue<>(m_capacity);
+
+        final Thread reader = createStage(() -> read(input, readQueue),
+                "Reader");
+        final Thread writer = createStage(
+                () -> write(writeQueue, container), "Writer");
+
+        try {
+            reader.start();
+            writer.start();
+
+            DataRow row;
+            while ((row = take(readQueue, exec)) != END) {
+                put(writeQueue, processor.process(row), exec);
+                if (m_writeFailure != null) {
+                    break;
+                }
+                exec.checkCanceled();
+            }
+            put(writeQueue, END, exec);
+            join(writer, exec);
+        } finally {
+            // NB: unblock the stages waiting on a queue, e.g. the reader
+            // after the writer failed, and wait for them, so that neither
+            // uses the input or the container after returning
+            reader.interrupt();
+            writer.interrupt();
+            reader.join();
+            writer.join();
+        }
+
+        rethrow(m_readFailure);
+        rethrow(m_writeFailure);
+        container.close();
+    }
+
+    /*
+     * Reader stage: access the cells of the rows, which deserializes cells
+     * stored in blobs, and queue the rows.
+     */
+    private void read(final Iterable<DataRow> input,
+            final BlockingQueue<DataRow> queue) {
+        try {
+            for (final DataRow row : input) {
+                if (m_columns == null) {
+                    for (int i = 0; i < row.getNumCells(); ++i) {
+                        row.getCell(i);
+                    }
+                } else {
+                    for (final int i : m_columns) {
+                        row.getCell(i);
+                    }
+                }
+                queue.put(row);
+            }
+        } catch (final InterruptedException e) {
+            // NB: processing stopped, nobody waits for the end
+            return;
+        } catch (final Throwable t) {
+            m_readFailure = t;
+        }
+
+        try {
+            queue.put(END);
+        } catch (final InterruptedException e) {
+            // NB: processing stopped, nobody waits for the end
+        }
+    }
+
+    /*
+     * Writer stage: add the rows to the container. After a failure the rows
+     * are discarded until the end, so that the processing does not block.
+     */
+    private void write(final BlockingQueue<DataRow> queue,
+            final BufferedDataContainer container) {
+        try {
+            DataRow row;
+            while ((row = queue.take()) != END) {
+                if (m_writeFailure != null) {
+                    continue;
+                }
+                try {
+                    container.addRowToTable(row);
+                } catch (final Throwable t) {
+                    m_writeFailure = t;
+                }
+            }
+        } catch (final InterruptedException e) {
+            // NB: processing stopped
+        }
+    }
+
+    /*
+     * Take a row from a queue, checking for cancellation while waiting for
+     * the stage filling it.
+     */
+    private static DataRow take(final BlockingQueue<DataRow> queue,
+            final ExecutionContext exec)
+            throws InterruptedException, CanceledExecutionException {
+        DataRow row;
+        while ((row = queue.poll(CANCEL_CHECK_MILLIS,
+                TimeUnit.MILLISECONDS)) == null) {
+            exec.checkCanceled();
+        }
+        return row;
+    }
+
+    /*
+     * Put a row into a queue, checking for cancellation while waiting for the
+     * stage draining it.
+     */
+    private static void put(final BlockingQueue<DataRow> queue,
+            final DataRow row, final ExecutionContext exec)
+            throws InterruptedException, CanceledExecutionException {
+        while (!queue.offer(row, CANCEL_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+            exec.checkCanceled();
+        }
+    }
+
+    /*
+     * Create the thread of the reader or writer stage, which runs in the
+     * context of the calling thread. Interrupting it stops the stage.
+     */
+    private static Thread createStage(final Runnable body,
+            final String name) {
+        final Thread thread = new Thread(
+                ThreadUtils.runnableWithContext(body),
+                "KNIME-RowPipeline-" + name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /*
+     * Wait for a stage to finish, checking for cancellation while waiting.
+     */
+    private static void join(final Thread stage, final ExecutionContext exec)
+            throws InterruptedException, CanceledExecutionException {
+        while (stage.isAlive()) {
+            stage.join(CANCEL_CHECK_MILLIS);
+            exec.checkCanceled();
+        }
+    }
+
+    private static void rethrow(final Throwable t) throws Exception {
+        if (t instanceof Exception) {
+            throw (Exception) t;
+        } else if (t instanceof Error) {
+            throw (Error) t;
+        } else if (t != null) {
+            throw new IllegalStateException(t);
+        }
+    }
+}
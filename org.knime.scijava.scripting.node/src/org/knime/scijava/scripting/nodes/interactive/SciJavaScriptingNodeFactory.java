@@ -54,7 +54,9 @@ import org.knime.core.node.NodeView;
 import org.knime.core.node.NotConfigurableException;
 import org.knime.scijava.scripting.base.ScriptingGateway;
 import org.knime.scijava.scripting.nodes.interactive.ui.ErrorDialogPane;
+import org.knime.scijava.scripting.nodes.interactive.ui.ExecutionMetricsNodeView;
 import org.knime.scijava.scripting.nodes.interactive.ui.SciJavaScriptingNodeDialog;
+import org.knime.scijava.scripting.nodes.interactive.ui.ScriptConsoleNodeView;
 import org.scijava.Context;
 
 /**
@@ -69,11 +71,26 @@ import org.scijava.Context;
 public class SciJavaScriptingNodeFactory
         extends NodeFactory<SciJavaScriptingNodeModel> {
 
-    private final Context m_context;
+    /* context shared by the model and dialog, created on first use */
+    private Context m_context;
 
     public SciJavaScriptingNodeFactory() {
         super();
-        m_context = ScriptingGateway.get().createSubContext();
+    }
+
+    /*
+     * Get the context of the node, creating it on first use. Factories are
+     * also created for listing the node repository and loading or copying
+     * workflows, where the context is never needed, and the model only asks
+     * for it once the node is configured or executed. The subcontext shares
+     * the plugin index and global services of the ScriptingGateway, only
+     * the node local services are created.
+     */
+    private synchronized Context getContext() {
+        if (m_context == null) {
+            m_context = ScriptingGateway.get().createSubContext();
+        }
+        return m_context;
     }
 
     /**
@@ -81,18 +98,21 @@ public class SciJavaScriptingNodeFactory
      */
     @Override
     protected int getNrNodeViews() {
-        return 0;
+        return 2;
     }
 
     /**
      * {@inheritDoc}
      *
-     * @return null (ScriptingNode does not have views.)
+     * @return view of the execution metrics or of the script console
      */
     @Override
     public NodeView<SciJavaScriptingNodeModel> createNodeView(
             final int viewIndex, final SciJavaScriptingNodeModel nodeModel) {
-        return null;
+        if (viewIndex == 1) {
+            return new ScriptConsoleNodeView(nodeModel);
+        }
+        return new ExecutionMetricsNodeView(nodeModel);
     }
 
     /**
@@ -109,7 +129,7 @@ public class SciJavaScriptingNodeFactory
     @Override
     protected NodeDialogPane createNodeDialogPane() {
         try {
-            return new SciJavaScriptingNodeDialog(m_context);
+            return new SciJavaScriptingNodeDialog(getContext());
         } catch (final NotConfigurableException e) {
             return new ErrorDialogPane(e);
         }
@@ -120,7 +140,7 @@ public class SciJavaScriptingNodeFactory
      */
     @Override
     public SciJavaScriptingNodeModel createNodeModel() {
-        return new SciJavaScriptingNodeModel(m_context);
+        return new SciJavaScriptingNodeModel(this::getContext);
     }
 
 }
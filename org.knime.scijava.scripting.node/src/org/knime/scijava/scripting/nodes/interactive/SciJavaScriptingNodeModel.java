@@ -2,11 +2,20 @@ package org.knime.scijava.scripting.nodes.interactive;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.function.Function;
 
 import javax.script.ScriptException;
 
@@ -16,8 +25,12 @@ import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.DataType;
 import org.knime.core.data.RowKey;
+import org.knime.core.data.append.AppendedColumnRow;
+import org.knime.core.data.container.AbstractCellFactory;
 import org.knime.core.data.container.CellFactory;
+import org.knime.core.data.container.CloseableRowIterator;
 import org.knime.core.data.container.ColumnRearranger;
+import org.knime.core.data.container.filter.TableFilter;
 import org.knime.core.data.def.DefaultRow;
 import org.knime.core.node.BufferedDataContainer;
 import org.knime.core.node.BufferedDataTable;
@@ -27,38 +40,59 @@ import org.knime.core.node.ExecutionMonitor;
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.NodeModel;
+import org.knime.core.node.NodeSettings;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
 import org.knime.core.node.port.PortObjectSpec;
 import org.knime.core.node.streamable.InputPortRole;
+import org.knime.core.node.streamable.BufferedDataTableRowOutput;
+import org.knime.core.node.streamable.DataTableRowInput;
 import org.knime.core.node.streamable.OutputPortRole;
 import org.knime.core.node.streamable.PartitionInfo;
+import org.knime.core.node.streamable.PortInput;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.streamable.RowOutput;
 import org.knime.core.node.streamable.StreamableFunction;
 import org.knime.core.node.streamable.StreamableOperator;
 import org.knime.core.node.streamable.StreamableOperatorInternals;
 import org.knime.core.util.UniqueNameGenerator;
 import org.knime.scijava.commands.KNIMEExecutionService;
+import org.knime.scijava.commands.KNIMESciJavaConstants;
 import org.knime.scijava.commands.converter.ConverterCacheService;
 import org.knime.scijava.commands.io.InputDataRowService;
 import org.knime.scijava.commands.io.OutputDataRowService;
 import org.knime.scijava.commands.settings.NodeModelSettingsService;
 import org.knime.scijava.commands.simplemapping.SimpleColumnMappingService;
 import org.knime.scijava.core.TempClassLoader;
+import org.knime.scijava.scripting.base.CompileCache;
 import org.knime.scijava.scripting.base.CompileHelper;
 import org.knime.scijava.scripting.base.CompileProductHelper;
+import org.knime.scijava.scripting.base.CompileScheduler;
+import org.knime.scijava.scripting.base.CompiledCommandArchive;
+import org.knime.scijava.scripting.base.ModuleBindingPlan;
 import org.knime.scijava.scripting.base.ScriptingGateway;
+import org.knime.scijava.scripting.nodes.interactive.ExecutionMetrics.Phase;
 import org.knime.scijava.scripting.nodes.interactive.settings.ColumnCreationMode;
+import org.knime.scijava.scripting.nodes.interactive.settings.OutputSpecCache;
 import org.knime.scijava.scripting.nodes.interactive.settings.SciJavaScriptingNodeSettings;
 import org.knime.scijava.scripting.nodes.interactive.settings.ScriptDialogMode;
+import org.knime.scijava.scripting.util.BatchUtils;
 import org.scijava.AbstractContextual;
 import org.scijava.Context;
+import org.scijava.command.Command;
 import org.scijava.module.Module;
 import org.scijava.module.ModuleException;
+import org.scijava.module.ModuleInfo;
 import org.scijava.module.ModuleItem;
 import org.scijava.module.ModuleService;
+import org.scijava.module.process.PostprocessorPlugin;
+import org.scijava.module.process.PreprocessorPlugin;
 import org.scijava.plugin.Parameter;
+import org.scijava.plugin.PluginService;
 import org.scijava.script.ScriptLanguage;
-import org.scijava.script.ScriptService;
+import org.scijava.script.ScriptModule;
+import org.scijava.service.Service;
 
 /**
  * NodeModel of the SciJava ScriptingNode.
@@ -71,16 +105,25 @@ public class SciJavaScriptingNodeModel extends NodeModel {
     private static final NodeLogger LOGGER =
             NodeLogger.getLogger(SciJavaScriptingNodeModel.class);
 
-    /* scijava context stuff */
-    private final Context m_context;
+    /* rows queued between the stages of a pipelined execution */
+    private static final int PIPELINE_CAPACITY = 64;
+
+    /* time to wait for parallel workers to finish their rows */
+    private static final long WORKER_TIMEOUT_SECONDS = 60;
+
+    /* creates the scijava context on first use */
+    private final Supplier<Context> m_contextSupplier;
+
+    /* scijava context stuff, null until first used */
+    private Context m_context;
+
+    /* whether settings were loaded before the context was created */
+    private boolean m_settingsDeferred = false;
 
     /* Node settings */
     private final SciJavaScriptingNodeSettings m_settings =
             new SciJavaScriptingNodeSettings();
 
-    /* Service providing access to ScriptLanguages plugins */
-    @Parameter
-    private ScriptService m_scriptService;
     @Parameter
     private NodeModelSettingsService m_nodeModelSettingsService;
     @Parameter
@@ -88,21 +131,25 @@ public class SciJavaScriptingNodeModel extends NodeModel {
     @Parameter
     private KNIMEExecutionService m_executionService;
     @Parameter
-    private OutputDataRowService m_outputrowService;
-    @Parameter
     private InputDataRowService m_inputrowService;
 
     /* Current compiled command and its command info */
     private CompileProductHelper m_compileProduct;
 
+    /* compile cache key of the script m_compileProduct was compiled from */
+    private String m_compileKey;
+
     /*
      * Compiler, which secretly manages special cases (and one day
      * optimizations) for some languages
      */
     private CompileHelper m_compiler;
 
-    private final StringWriter m_errorWriter = new StringWriter();
-    private final StringWriter m_outputWriter = new StringWriter();
+    /* console of the compiler and the scripts, forwarded to the log */
+    private final ScriptConsole m_errorWriter =
+            new ScriptConsole(ScriptConsole.DEFAULT_CAPACITY, LOGGER, true);
+    private final ScriptConsole m_outputWriter =
+            new ScriptConsole(ScriptConsole.DEFAULT_CAPACITY, LOGGER, false);
 
     private ColumnRearranger m_colRearranger;
 
@@ -114,6 +161,19 @@ public class SciJavaScriptingNodeModel extends NodeModel {
 
     private String m_oldCode;
 
+    /*
+     * settings hash and input spec of the last configure, which created
+     * m_outTableSpec, saved with the settings as OutputSpecCache
+     */
+    private String m_configuredHash = null;
+    private DataTableSpec m_configuredInSpec = null;
+
+    /* metrics of the last execution, shown in the node view */
+    private final ExecutionMetrics m_metrics = new ExecutionMetrics();
+
+    /* number of streaming partitions currently executing */
+    private final AtomicInteger m_runningPartitions = new AtomicInteger();
+
     // --- node lifecycle: configure/execute/reset ---
 
     /**
@@ -121,34 +181,93 @@ public class SciJavaScriptingNodeModel extends NodeModel {
      *
      */
     protected SciJavaScriptingNodeModel(final Context scijavaContext) {
+        this(() -> scijavaContext);
+        getContext();
+    }
+
+    /**
+     * Constructor for a node whose context is created on first use. Nodes
+     * of a loaded workflow only create their context once they are
+     * configured, executed or their dialog is opened, settings loaded before
+     * are kept until then.
+     *
+     * @param contextSupplier
+     *            creates the context of the node, called at most once
+     */
+    protected SciJavaScriptingNodeModel(
+            final Supplier<Context> contextSupplier) {
         super(1, 1);
 
-        m_context = scijavaContext;
-        m_context.inject(this);
+        m_contextSupplier = contextSupplier;
+    }
 
-        try {
-            m_compiler = new CompileHelper(scijavaContext, m_errorWriter,
+    /*
+     * Get the context of the node, creating it and the services of this
+     * model on first use.
+     */
+    private synchronized Context getContext() {
+        if (m_context == null) {
+            m_context = m_contextSupplier.get();
+            m_context.inject(this);
+
+            m_compiler = new CompileHelper(m_context, m_errorWriter,
                     m_outputWriter);
-        } catch (final IOException e) {
-            getLogger().error(
-                    "Could not create temporary directory for Scripting Node.");
         }
+        return m_context;
+    }
+
+    /*
+     * Get the context of the node and load the settings which were kept
+     * because there was no context when they were loaded.
+     */
+    private synchronized Context initContext()
+            throws InvalidSettingsException {
+        final Context context = getContext();
+        if (m_settingsDeferred) {
+            m_settings.loadDeferredSettings(m_nodeModelSettingsService);
+            m_columnMappingService
+                    .deserialize(m_settings.getColumnInputMapping());
+            m_settingsDeferred = false;
+        }
+        return context;
     }
 
     @Override
     protected DataTableSpec[] configure(final DataTableSpec[] inSpecs)
             throws InvalidSettingsException {
+        initContext();
         final ScriptLanguage language = getCurrentLanguage();
 
+        // provide the input table spec to module preprocessors
+        // (for column lookup in ColumnInputMappingKnimePreprocessor)
+        m_inputrowService.setDataTableSpec(inSpecs[0]);
+
+        // NB: if the script is not compiled yet, e.g. after loading a
+        // workflow, answer the output spec saved with the settings and
+        // compile the script in the background, so that configuring many
+        // scripting nodes does not block on compiling. The compile product
+        // is kept, it is only used while it matches the script.
+        final String hash = OutputSpecCache.createHash(m_settings);
+        final OutputSpecCache cache = m_settings.getOutputSpecCache();
+        if (!isCompiled(language) && cache != null
+                && cache.matches(hash, inSpecs[0])) {
+            CompileScheduler.schedule(m_context, m_settings.getScriptCode(),
+                    language);
+            m_outTableSpec = cache.getOutSpec();
+            m_configuredHash = hash;
+            m_configuredInSpec = inSpecs[0];
+            return new DataTableSpec[] { m_outTableSpec };
+        }
+
         // only recompile if the code changed
         if (!m_settings.getScriptCode().equals(m_oldCode)) {
             m_oldCode = m_settings.getScriptCode();
             try {
-                m_compileProduct = recompile(m_compiler,
-                        m_settings.getScriptCode(), language, m_errorWriter);
+                m_compileProduct = compileScript(language);
 
+                disposeCellFactory();
                 m_cellFactory = new ScriptingCellFactory(m_context, inSpecs[0],
-                        m_compileProduct.createModule(language));
+                        createModule(language, m_context));
 
             } catch (final NullPointerException | ModuleException e) {
                 LOGGER.error(e);
@@ -160,12 +279,20 @@ public class SciJavaScriptingNodeModel extends NodeModel {
             }
         }
 
-        // provide the input table spec to module preprocessors
-        // (for column lookup in ColumnInputMappingKnimePreprocessor)
-        m_inputrowService.setDataTableSpec(inSpecs[0]);
-
         // column creation mode
-        if (m_settings
+        if (isTableScript(m_compileProduct.getModuleInfo())) {
+            m_outTableSpec = createTableScriptSpec(
+                    m_compileProduct.getModuleInfo(), inSpecs[0]);
+        } else if (m_settings.getBatchSize() > 0) {
+            try {
+                m_outTableSpec = new BatchScriptingProcessor(m_context,
+                        inSpecs[0], createModule(language, m_context))
+                                .createOutSpec(inSpecs[0]);
+            } catch (final ModuleException e) {
+                throw new InvalidSettingsException(
+                        "Could not create module: " + e.getMessage(), e);
+            }
+        } else if (m_settings
                 .getColumnCreationMode() == ColumnCreationMode.APPEND_COLUMNS) {
             m_colRearranger = new ColumnRearranger(inSpecs[0]);
             m_colRearranger.append(m_cellFactory);
@@ -175,6 +302,8 @@ public class SciJavaScriptingNodeModel extends NodeModel {
             m_outTableSpec = new DataTableSpec(m_cellFactory.getColumnSpecs());
         }
 
+        m_configuredHash = hash;
+        m_configuredInSpec = inSpecs[0];
         return new DataTableSpec[] { m_outTableSpec };
     }
 
@@ -182,54 +311,454 @@ public class SciJavaScriptingNodeModel extends NodeModel {
     protected BufferedDataTable[] execute(final BufferedDataTable[] inData,
             final ExecutionContext exec) throws Exception {
 
+        initContext();
+
         // ensure the dialog was generated
         if (m_settings.getMode() != ScriptDialogMode.SETTINGS_EDIT) {
             throw new IllegalArgumentException(
                     "Node is not correctly configured for execution! Please configure the node in the generated dialog!");
         }
 
-        // prepare output table
         final BufferedDataTable inTable = inData[0];
-        final BufferedDataContainer container =
-                exec.createDataContainer(m_outTableSpec);
         BufferedDataTable out;
 
         // provide the KNIME data via Scijava services to module
         m_executionService.setExecutionContext(exec);
+        m_metrics.startExecution();
+        clearConsoles();
 
         // create a clean module
         final ScriptLanguage currentLanguage = getCurrentLanguage();
-        m_compileProduct = recompile(m_compiler, m_settings.getScriptCode(),
-                currentLanguage, m_errorWriter);
-        m_cellFactory = new ScriptingCellFactory(m_context, m_outTableSpec,
-                m_compileProduct.createModule(currentLanguage));
+        final DataTableSpec inSpec = inTable.getDataTableSpec();
+        m_compileProduct = compileScript(currentLanguage);
+
+        // NB: table scripts and batches create their own modules, only the
+        // other paths execute rows with the cell factory
+        final boolean tableScript =
+                isTableScript(m_compileProduct.getModuleInfo());
+        final boolean batch = !tableScript && m_settings.getBatchSize() > 0;
+
+        /* all factories executing rows, workers are released afterwards */
+        final List<ScriptingCellFactory> factories = new ArrayList<>();
+        ParallelScriptingCellFactory parallel = null;
+        boolean succeeded = false;
+
+        if (!tableScript && !batch) {
+            if (!isCellFactoryRetained(inSpec)) {
+                disposeCellFactory();
+                m_cellFactory = new ScriptingCellFactory(m_context, inSpec,
+                        createModule(currentLanguage, m_context));
+            }
+            factories.add(m_cellFactory);
+        }
+
+        /* input columns read by the script, null for all columns */
+        final int[] columns =
+                factories.isEmpty() ? null : m_cellFactory.getReadColumns();
 
         try (final TempClassLoader cl = new TempClassLoader(
                 ScriptingGateway.get().createUrlClassLoader())) {
 
-            if (m_settings
-                    .getColumnCreationMode() == ColumnCreationMode.APPEND_COLUMNS) {
-                out = exec.createColumnRearrangeTable(inTable, m_colRearranger,
+            if (tableScript) {
+                final BufferedDataTableRowOutput output =
+                        new BufferedDataTableRowOutput(
+                                exec.createDataContainer(m_outTableSpec));
+                new TableScriptingProcessor(m_context, inSpec,
+                        createModule(currentLanguage, m_context)).process(
+                                new DataTableRowInput(inTable), output, exec,
+                                "Row");
+                out = output.getDataTable();
+            } else if (batch) {
+                final BatchScriptingProcessor processor =
+                        new BatchScriptingProcessor(m_context, inSpec,
+                                createModule(currentLanguage, m_context));
+                final BufferedDataTableRowOutput output =
+                        new BufferedDataTableRowOutput(
+                                exec.createDataContainer(m_outTableSpec));
+                processor.process(new DataTableRowInput(inTable), output,
                         exec);
+                out = output.getDataTable();
+            } else if (m_settings.getParallelism() > 1) {
+                addConfinedCellFactories(inSpec, factories, exec);
+                parallel = new ParallelScriptingCellFactory(factories);
+                out = exec.createColumnRearrangeTable(inTable,
+                        createParallelColumnRearranger(inSpec, parallel),
+                        exec);
+            } else if (m_settings
+                    .getColumnCreationMode() == ColumnCreationMode.APPEND_COLUMNS) {
+                if (columns == null) {
+                    m_colRearranger = new ColumnRearranger(inSpec);
+                    m_colRearranger.append(m_cellFactory);
+                    out = exec.createColumnRearrangeTable(inTable,
+                            m_colRearranger, exec);
+                } else {
+                    // NB: the ColumnRearranger reads all columns, so create
+                    // the new columns from the projected input and join them
+                    final BufferedDataContainer appended =
+                            exec.createDataContainer(new DataTableSpec(
+                                    m_cellFactory.getColumnSpecs()));
+                    try (final CloseableRowIterator rows = filter(inTable,
+                            columns)) {
+                        executeRows(rows, inTable.size(), appended, exec);
+                    }
+                    out = exec.createJoinedTable(inTable,
+                            appended.getTable(), exec);
+                }
+            } else if (m_settings.isPipelined()) { /* NEW_TABLE */
+                // NB: the script runs on this thread, so it keeps the
+                // TempClassLoader
+                final BufferedDataContainer container =
+                        exec.createDataContainer(m_outTableSpec);
+                try (final CloseableRowIterator rows = filter(inTable,
+                        columns)) {
+                    new RowPipeline(PIPELINE_CAPACITY, columns).run(
+                            () -> rows,
+                            row -> new DefaultRow(row.getKey(),
+                                    m_cellFactory.getCells(row)),
+                            container, exec);
+                }
+                out = container.getTable();
             } else { /* NEW_TABLE */
-                for (final DataRow row : inTable) {
-                    final DataRow outputRow = new DefaultRow(row.getKey(),
-                            m_cellFactory.getCells(row));
-                    container.addRowToTable(outputRow);
-
-                    // check if user canceled execution of node
-                    exec.checkCanceled();
+                final BufferedDataContainer container =
+                        exec.createDataContainer(m_outTableSpec);
+                try (final CloseableRowIterator rows = filter(inTable,
+                        columns)) {
+                    executeRows(rows, inTable.size(), container, exec);
                 }
-                container.close();
                 out = container.getTable();
             }
+            succeeded = true;
+        } finally {
+            // NB: rows of a canceled or failed execution may still be
+            // computed by workers, which must not use disposed factories
+            if (parallel != null) {
+                parallel.awaitWorkers();
+            }
+            for (final ScriptingCellFactory factory : factories) {
+                if (factory != m_cellFactory) {
+                    factory.dispose();
+                }
+            }
+            // NB: a module which failed may be in an inconsistent state
+            if (!succeeded || !m_settings.isRetainModules()) {
+                disposeCellFactory();
+            }
+            m_metrics.finishExecution();
+            notifyViews(m_metrics);
+        }
+
+        if (m_settings.isMetricsFlowVariables()) {
+            pushMetricsFlowVariables();
         }
         return new BufferedDataTable[] { out };
     }
 
+    /*
+     * Iterate the table, materializing only the given columns, so that the
+     * cells of other columns, e.g. images, are not loaded from disk.
+     */
+    private static CloseableRowIterator filter(final BufferedDataTable table,
+            final int[] columns) {
+        return columns == null ? table.iterator()
+                : table.filter(TableFilter.materializeCols(columns));
+    }
+
+    /*
+     * Execute the cell factory for all rows, adding the created cells to the
+     * container, which is closed afterwards.
+     */
+    private void executeRows(final CloseableRowIterator rows,
+            final long rowCount, final BufferedDataContainer container,
+            final ExecutionContext exec) throws CanceledExecutionException {
+        long index = 0;
+        while (rows.hasNext()) {
+            final DataRow row = rows.next();
+            final DataRow outputRow = new DefaultRow(row.getKey(),
+                    m_cellFactory.getCells(row));
+            container.addRowToTable(outputRow);
+
+            // check if user canceled execution of node
+            exec.checkCanceled();
+            exec.setProgress((double) ++index / rowCount);
+        }
+        container.close();
+    }
+
+    /*
+     * Push the metrics of the last execution as flow variables. Durations
+     * are in milliseconds.
+     */
+    private void pushMetricsFlowVariables() {
+        pushFlowVariableDouble("scripting.compileMillis",
+                toMillis(Math.max(0, m_metrics.getCompileTime())));
+        pushFlowVariableDouble("scripting.contextCreationMillis",
+                toMillis(m_metrics.getContextCreationTime()));
+        pushFlowVariableDouble("scripting.moduleCreationMillis",
+                toMillis(m_metrics.getModuleCreationTime()));
+        pushFlowVariableDouble("scripting.executionMillis",
+                toMillis(m_metrics.getExecutionTime()));
+        pushFlowVariableDouble("scripting.rowsPerSecond",
+                m_metrics.getRowsPerSecond());
+        pushFlowVariableInt("scripting.rows", toInt(m_metrics.getRows()));
+        pushFlowVariableInt("scripting.cells", toInt(m_metrics.getCells()));
+        pushFlowVariableInt("scripting.missingCells",
+                toInt(m_metrics.getMissingCells()));
+        pushFlowVariableDouble("scripting.memoizationHitRate",
+                m_metrics.getMemoizationHitRate());
+
+        for (final Phase phase : Phase.values()) {
+            final TimingHistogram histogram = m_metrics.getHistogram(phase);
+            final String prefix =
+                    "scripting." + phase.name().toLowerCase(Locale.ROOT);
+            pushFlowVariableDouble(prefix + ".meanMillis",
+                    histogram.getMean() / TimeUnit.MILLISECONDS.toNanos(1));
+            pushFlowVariableDouble(prefix + ".p50Millis",
+                    toMillis(histogram.getPercentile(50)));
+            pushFlowVariableDouble(prefix + ".p99Millis",
+                    toMillis(histogram.getPercentile(99)));
+            pushFlowVariableDouble(prefix + ".maxMillis",
+                    toMillis(histogram.getMax()));
+        }
+    }
+
+    private static double toMillis(final long nanos) {
+        return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private static int toInt(final long value) {
+        return (int) Math.min(Integer.MAX_VALUE, value);
+    }
+
+    /*
+     * Fill the given list of factories up to the configured parallelism. The
+     * factories are added one by one, so that the caller can dispose the
+     * factories created before a failure.
+     */
+    private void addConfinedCellFactories(final DataTableSpec inSpec,
+            final List<ScriptingCellFactory> factories,
+            final ExecutionContext exec)
+            throws ModuleException, InvalidSettingsException {
+        final int parallelism = m_settings.getParallelism();
+        for (int i = factories.size(); i < parallelism; ++i) {
+            factories.add(createConfinedCellFactory(inSpec, exec));
+        }
+    }
+
+    /*
+     * Create a ColumnRearranger which distributes the rows over a pool of
+     * modules. The ColumnRearranger takes care of feeding the rows to the
+     * pool with a bounded queue and preserves order and RowKeys of the rows.
+     * For NEW_TABLE all input columns are removed, leaving only the script
+     * outputs.
+     */
+    private ColumnRearranger createParallelColumnRearranger(
+            final DataTableSpec inSpec,
+            final ParallelScriptingCellFactory parallel) {
+        final ColumnRearranger rearranger = new ColumnRearranger(inSpec);
+        if (m_settings.getColumnCreationMode() == ColumnCreationMode.NEW_TABLE) {
+            final int[] inputColumns = new int[inSpec.getNumColumns()];
+            for (int i = 0; i < inputColumns.length; ++i) {
+                inputColumns[i] = i;
+            }
+            rearranger.remove(inputColumns);
+        }
+        rearranger.append(parallel);
+        return rearranger;
+    }
+
+    /*
+     * Create a ScriptingCellFactory with a module in a new subcontext. The
+     * subcontext has its own InputDataRowService and OutputDataRowService, so
+     * the factory may be used concurrently to factories of other contexts.
+     * The settings and column mapping of this node are copied into the
+     * subcontexts services. The factory owns the subcontext and disposes it
+     * with its module.
+     */
+    private ScriptingCellFactory createConfinedCellFactory(
+            final DataTableSpec inSpec, final ExecutionContext exec)
+            throws ModuleException, InvalidSettingsException {
+        final Context context = createConfinedContext(inSpec, exec);
+        try {
+            return new ScriptingCellFactory(context, inSpec,
+                    createModule(getCurrentLanguage(), context), true);
+        } catch (final ModuleException | RuntimeException e) {
+            context.dispose();
+            throw e;
+        }
+    }
+
+    /*
+     * Create a new subcontext with the settings, column mapping and
+     * execution context of this node.
+     */
+    private Context createConfinedContext(final DataTableSpec inSpec,
+            final ExecutionContext exec) throws InvalidSettingsException {
+        final long start = System.nanoTime();
+        final Context context = ScriptingGateway.get().createSubContext();
+        m_metrics.addContextCreation(System.nanoTime() - start);
+
+        final NodeSettings settings = new NodeSettings("confined");
+        m_settings.saveSettingsTo(settings, m_nodeModelSettingsService);
+        new SciJavaScriptingNodeSettings().loadSettingsFrom(settings,
+                context.getService(NodeModelSettingsService.class), false);
+        context.getService(SimpleColumnMappingService.class)
+                .deserialize(m_settings.getColumnInputMapping());
+
+        context.getService(KNIMEExecutionService.class)
+                .setExecutionContext(exec);
+        context.getService(InputDataRowService.class).setDataTableSpec(inSpec);
+
+        return context;
+    }
+
+    /*
+     * Compile the script, recording the compile time if a new compile product
+     * was created. The current compile product is reused if the script did
+     * not change.
+     */
+    private CompileProductHelper compileScript(final ScriptLanguage language) {
+        final String key =
+                CompileCache.createKey(m_settings.getScriptCode(), language);
+        if (m_compileProduct != null && key.equals(m_compileKey)) {
+            return m_compileProduct;
+        }
+
+        try {
+            // NB: a compilation scheduled by configure fills the cache
+            CompileScheduler.await(m_settings.getScriptCode(), language);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        final long start = System.nanoTime();
+        final CompileProductHelper product = recompile(m_compiler,
+                m_settings.getScriptCode(), language, m_errorWriter);
+        m_metrics.setCompileTime(System.nanoTime() - start);
+        m_compileKey = key;
+        return product;
+    }
+
+    /*
+     * Whether the current compile product was compiled from the current
+     * script.
+     */
+    private boolean isCompiled(final ScriptLanguage language) {
+        return m_compileProduct != null && CompileCache
+                .createKey(m_settings.getScriptCode(), language)
+                .equals(m_compileKey);
+    }
+
+    /*
+     * Create a module from the current compile product, recording the time
+     * it takes.
+     */
+    private Module createModule(final ScriptLanguage language,
+            final Context context) throws ModuleException {
+        final long start = System.nanoTime();
+        final Module module = m_compileProduct.createModule(language, context);
+        m_metrics.addModuleCreation(System.nanoTime() - start);
+
+        // NB: Java commands print to System.out, which is not captured
+        if (module instanceof ScriptModule) {
+            ((ScriptModule) module).setOutputWriter(m_outputWriter);
+            ((ScriptModule) module).setErrorWriter(m_errorWriter);
+        }
+        return module;
+    }
+
     @Override
     protected void reset() {
-        /* nothing to do */
+        m_metrics.clear();
+        clearConsoles();
+        notifyViews(m_metrics);
+    }
+
+    @Override
+    protected void onDispose() {
+        disposeCellFactory();
+        clearConsoles();
+    }
+
+    /*
+     * Remove the console output of the last execution, including the files
+     * it was spilled to.
+     */
+    private void clearConsoles() {
+        m_outputWriter.clear();
+        m_errorWriter.clear();
+    }
+
+    /*
+     * Release the module of the current cell factory, e.g. give its script
+     * engine back to the pool. The factory stays usable.
+     */
+    private void disposeCellFactory() {
+        if (m_cellFactory != null) {
+            m_cellFactory.dispose();
+        }
+    }
+
+    /*
+     * Whether the cell factory of the previous execution or configure is
+     * retained and can execute the next rows: the module is kept across
+     * executions, e.g. for every iteration of a loop, unless the compile
+     * product, the settings or the input spec changed.
+     */
+    private boolean isCellFactoryRetained(final DataTableSpec inSpec) {
+        return m_settings.isRetainModules() && m_cellFactory != null
+                && m_cellFactory.isReusable(m_compileProduct, inSpec,
+                        OutputSpecCache.createHash(m_settings));
+    }
+
+    /**
+     * @return metrics of the last execution of this node
+     */
+    public ExecutionMetrics getMetrics() {
+        return m_metrics;
+    }
+
+    /**
+     * @return console output of the scripts of the last execution
+     */
+    public ScriptConsole getOutputConsole() {
+        return m_outputWriter;
+    }
+
+    /**
+     * @return console errors of the scripts and the compiler
+     */
+    public ScriptConsole getErrorConsole() {
+        return m_errorWriter;
+    }
+
+    /**
+     * @return the cell factory created by the last call to configure or
+     *         execute, <code>null</code> before the node was configured.
+     */
+    protected ScriptingCellFactory getCellFactory() {
+        return m_cellFactory;
+    }
+
+    /*
+     * Start the metrics when the first of concurrently executing streaming
+     * partitions starts.
+     */
+    private void startPartition() {
+        if (m_runningPartitions.getAndIncrement() == 0) {
+            m_metrics.startExecution();
+            clearConsoles();
+        }
+    }
+
+    /*
+     * Stop the metrics when the last of concurrently executing streaming
+     * partitions finishes.
+     */
+    private void finishPartition() {
+        if (m_runningPartitions.decrementAndGet() == 0) {
+            m_metrics.finishExecution();
+        }
+        notifyViews(m_metrics);
     }
 
     // --- streaming ---
@@ -238,13 +767,26 @@ public class SciJavaScriptingNodeModel extends NodeModel {
     public StreamableOperator createStreamableOperator(
             final PartitionInfo partitionInfo, final PortObjectSpec[] inSpecs)
             throws InvalidSettingsException {
+        initContext();
+
+        // NB: configure may have answered a cached output spec without
+        // compiling the script
+        m_compileProduct = compileScript(getCurrentLanguage());
+
+        // NB: every partition executes its own module in its own subcontext,
+        // so that partitions can run concurrently.
+        if (isTableScript(m_compileProduct.getModuleInfo())) {
+            return new TableScriptingStreamableOperator(partitionInfo);
+        } else if (m_settings.getBatchSize() > 0) {
+            return new BatchScriptingStreamableOperator();
+        }
 
+        final DataTableSpec inSpec = (DataTableSpec) inSpecs[0];
         switch (m_settings.getColumnCreationMode()) {
         case APPEND_COLUMNS:
-            return new RearrangingScriptingStreamableFunction(
-                    m_colRearranger.createStreamableFunction());
+            return new RearrangingScriptingStreamableFunction(inSpec);
         case NEW_TABLE:
-            return new ScriptingStreamableFunction();
+            return new ScriptingStreamableFunction(inSpec);
         default:
             throw new IllegalArgumentException(
                     "Setting: " + m_settings.getColumnCreationMode()
@@ -268,38 +810,83 @@ public class SciJavaScriptingNodeModel extends NodeModel {
     protected void loadInternals(final File nodeInternDir,
             final ExecutionMonitor exec)
             throws IOException, CanceledExecutionException {
-        /* nothing to do */
+        // Define the classes of a previously compiled Java script, so that
+        // the script does not need to be compiled again.
+        final String code = m_settings.getScriptCode();
+        final ScriptLanguage language = getCurrentLanguage();
+        final Class<? extends Command> commandClass =
+                CompiledCommandArchive.load(nodeInternDir, code, language,
+                        ScriptingGateway.get().createUrlClassLoader());
+
+        if (commandClass != null) {
+            CompileCache.get().put(code, language, commandClass);
+        }
     }
 
     @Override
     protected void saveInternals(final File nodeInternDir,
             final ExecutionMonitor exec)
             throws IOException, CanceledExecutionException {
-        /* nothing to do */
+        // NB: a product compiled from a previous script must not be saved
+        // for the current one
+        final ScriptLanguage language = getCurrentLanguage();
+        if (isCompiled(language)) {
+            CompiledCommandArchive.save(m_compileProduct,
+                    m_settings.getScriptCode(), language, nodeInternDir);
+        }
     }
 
     @Override
     protected void validateSettings(final NodeSettingsRO settings)
             throws InvalidSettingsException {
+        // NB: without a context, the settings of the services are validated
+        // once they are loaded into the context
         m_settings.validateSettings(settings, m_nodeModelSettingsService);
     }
 
     @Override
-    protected void loadValidatedSettingsFrom(final NodeSettingsRO settings)
-            throws InvalidSettingsException {
+    protected synchronized void loadValidatedSettingsFrom(
+            final NodeSettingsRO settings) throws InvalidSettingsException {
+        // NB: the services only exist once there is a context, otherwise the
+        // settings are kept until it is created
         m_settings.loadSettingsFrom(settings, m_nodeModelSettingsService,
                 false);
-        m_columnMappingService.deserialize(m_settings.getColumnInputMapping());
+        if (m_context != null) {
+            m_columnMappingService
+                    .deserialize(m_settings.getColumnInputMapping());
+        } else {
+            m_settingsDeferred = true;
+        }
 
         getCurrentLanguage(); // ensure the language is still available
     }
 
     @Override
-    protected void saveSettingsTo(final NodeSettingsWO settings) {
-        m_settings.setColumnInputMapping(m_columnMappingService.serialize());
+    protected synchronized void saveSettingsTo(final NodeSettingsWO settings) {
+        if (m_context != null) {
+            m_settings
+                    .setColumnInputMapping(m_columnMappingService.serialize());
+        }
+        m_settings.setOutputSpecCache(createOutputSpecCache());
         m_settings.saveSettingsTo(settings, m_nodeModelSettingsService);
     }
 
+    /*
+     * The output spec to save with the settings: the one of the last
+     * configure, or the one loaded with the settings, if it was created for
+     * the current settings. null if neither was.
+     */
+    private OutputSpecCache createOutputSpecCache() {
+        final String hash = OutputSpecCache.createHash(m_settings);
+        if (m_outTableSpec != null && hash.equals(m_configuredHash)) {
+            return new OutputSpecCache(hash, m_configuredInSpec,
+                    m_outTableSpec);
+        }
+        final OutputSpecCache loaded = m_settings.getOutputSpecCache();
+        return (loaded != null && hash.equals(loaded.getHash())) ? loaded
+                : null;
+    }
+
     /**
      * @return {@link ScriptLanguage} with name
      *         <code>m_settings.getScriptLanguageName()</code>.
@@ -310,8 +897,8 @@ public class SciJavaScriptingNodeModel extends NodeModel {
         try (final TempClassLoader cl = new TempClassLoader(
                 ScriptingGateway.get().createUrlClassLoader())) {
             final String languageName = m_settings.getScriptLanguageName();
-            final ScriptLanguage language =
-                    m_scriptService.getLanguageByName(languageName);
+            final ScriptLanguage language = ScriptingGateway.get()
+                    .getScriptService().getLanguageByName(languageName);
             if (language == null) {
                 throw new NullPointerException("Could not load language "
                         + languageName + " for Scripting Node.");
@@ -322,22 +909,95 @@ public class SciJavaScriptingNodeModel extends NodeModel {
 
     private static CompileProductHelper recompile(final CompileHelper compiler,
             final String scriptCode, final ScriptLanguage language,
-            StringWriter errorWriter) {
+            final ScriptConsole errorWriter) {
 
         try (final TempClassLoader cl = new TempClassLoader(
                 ScriptingGateway.get().createUrlClassLoader())) {
             return compiler.compile(scriptCode, language);
         } catch (ScriptException e) {
-            String error = errorWriter.toString();
-            errorWriter.getBuffer().setLength(0);
+            final String error = errorWriter.getTail();
+            errorWriter.clear();
             throw new IllegalArgumentException(
                     "Script compilation failed: \n " + error);
         }
 
     }
 
+    // --- table scripts ---
+
+    /*
+     * Whether the script processes all rows in a single run: it has an input
+     * accepting a RowInput and an input accepting a ScriptRowOutput.
+     */
+    private static boolean isTableScript(final ModuleInfo info) {
+        return findInput(info, RowInput.class) != null
+                && findInput(info, ScriptRowOutput.class) != null;
+    }
+
+    /*
+     * Find the name of the first input accepting values of the given type,
+     * null if there is none. Inputs of type Object are ignored.
+     */
+    private static String findInput(final ModuleInfo info,
+            final Class<?> valueType) {
+        for (final ModuleItem<?> input : info.inputs()) {
+            final Class<?> type = input.getType();
+            if (type != Object.class && type.isAssignableFrom(valueType)) {
+                return input.getName();
+            }
+        }
+        return null;
+    }
+
+    /*
+     * Create the output spec of a table script from its outputs.
+     */
+    private DataTableSpec createTableScriptSpec(final ModuleInfo info,
+            final DataTableSpec inSpec) throws InvalidSettingsException {
+        final String suffix = m_settings.getColumnSuffixModel().isEnabled()
+                ? m_settings.getColumnSuffix() : "";
+        final UniqueNameGenerator nameGen = new UniqueNameGenerator(inSpec);
+
+        final List<DataColumnSpec> specs = new ArrayList<>();
+        for (final ModuleItem<?> output : info.outputs()) {
+            // FIXME Hack to supress autogenerated result output
+            if (output.getName().equals("result")) {
+                continue;
+            }
+
+            final DataType type =
+                    PrimitiveCellConverters.getDataType(output.getType());
+            if (type == null) {
+                throw new InvalidSettingsException("Output \""
+                        + output.getName() + "\" of type "
+                        + output.getType().getName()
+                        + " is not supported in table scripts.");
+            }
+            specs.add(nameGen.newColumn(output.getName() + suffix, type));
+        }
+        return new DataTableSpec(specs.toArray(new DataColumnSpec[] {}));
+    }
+
     // --- nested classes ---
 
+    /*
+     * Find the index of the column bound to an input: the column mapped to
+     * it in the dialog, its default column or the column with its name. -1
+     * if there is none.
+     */
+    private static int findColumn(final DataTableSpec inSpec,
+            final ModuleItem<?> input, final String mappedColumn) {
+        if (mappedColumn != null && inSpec.containsName(mappedColumn)) {
+            return inSpec.findColumnIndex(mappedColumn);
+        }
+        final String defaultColumn =
+                input.get(KNIMESciJavaConstants.DEFAULT_COLUMN_KEY);
+        if (defaultColumn != null && inSpec.containsName(defaultColumn)) {
+            return inSpec.findColumnIndex(defaultColumn);
+        }
+        return inSpec.findColumnIndex(input.getName());
+    }
+
     /**
      * CellFactory for ScriptingNode.
      *
@@ -349,16 +1009,150 @@ public class SciJavaScriptingNodeModel extends NodeModel {
         private final Module m_module;
         private final DataColumnSpec[] m_spec;
 
+        /* compile product the module was created from */
+        private final CompileProductHelper m_product;
+
+        /* input spec and settings hash the factory was created for */
+        private final DataTableSpec m_inSpec;
+        private final String m_settingsHash;
+
+        private boolean m_disposed = false;
+
+        /* number of rows computed by this factory, to sample their timings */
+        private long m_rowIndex = 0;
+
+        /* whether the context was created for this factory only */
+        private final boolean m_ownsContext;
+
+        /* memoized results and the columns keying them, null if disabled */
+        private final ResultCache m_results;
+        private final int[] m_keyColumns;
+
+        /* whether the row key is part of the memoization key */
+        private final boolean m_keyWithRowKey;
+
+        /* plan for running the module directly, null for module service */
+        private final ModuleBindingPlan m_bindingPlan;
+
+        /*
+         * Inputs set directly from the cells of a row, the indices of their
+         * columns and the converters of their values, resolved once with the
+         * binding plan.
+         */
+        private final List<String> m_boundInputs = new ArrayList<>();
+        private final List<Integer> m_boundColumns = new ArrayList<>();
+        private final List<Function<DataCell, Object>> m_boundConverters =
+                new ArrayList<>();
+
+        /*
+         * Output names in column order and converters creating their cells
+         * without the ConverterCacheService, null for outputs of other types.
+         */
+        private final List<String> m_outputNames = new ArrayList<>();
+        private final List<Function<Object, DataCell>> m_outputConverters =
+                new ArrayList<>();
+
+        /* whether all outputs are converted by m_outputConverters */
+        private final boolean m_fastOutputs;
+
         @Parameter
         private ModuleService m_moduleService;
         @Parameter
+        private PluginService m_pluginService;
+        @Parameter
         private ConverterCacheService m_converterCache;
+        @Parameter
+        private InputDataRowService m_inputRowService;
+        @Parameter
+        private OutputDataRowService m_outputRowService;
 
         public ScriptingCellFactory(final Context context, DataTableSpec inSpec,
                 final Module module) {
+            this(context, inSpec, module, false);
+        }
+
+        /**
+         * Constructor.
+         *
+         * @param context
+         *            context of the module
+         * @param inSpec
+         *            spec of the input table
+         * @param module
+         *            the module to execute for every row
+         * @param ownsContext
+         *            whether the context was created for this factory only and
+         *            is disposed with it
+         */
+        public ScriptingCellFactory(final Context context,
+                final DataTableSpec inSpec, final Module module,
+                final boolean ownsContext) {
             m_module = module;
+            m_ownsContext = ownsContext;
+            m_product = m_compileProduct;
+            m_inSpec = inSpec;
+            m_settingsHash = OutputSpecCache.createHash(m_settings);
             setContext(context);
             m_spec = createDataColumnSpecs(inSpec);
+            m_fastOutputs = !m_outputConverters.contains(null);
+            m_bindingPlan = m_settings.isDirectInvocation()
+                    ? new ModuleBindingPlan(context, module.getInfo()) : null;
+            if (m_bindingPlan != null) {
+                bindInputs(context, inSpec);
+            }
+            m_results = m_settings.isMemoize()
+                    ? new ResultCache(ResultCache.DEFAULT_MAX_ENTRIES,
+                            ResultCache.DEFAULT_MAX_BYTES)
+                    : null;
+            m_keyColumns = m_settings.isMemoize() ? getReadColumns() : null;
+            m_keyWithRowKey = m_settings.isMemoize() && isRowKeyRead();
+        }
+
+        /*
+         * Resolve the column and converter of every input which can be set
+         * directly from a cell. Other inputs are left to the preprocessors.
+         */
+        private void bindInputs(final Context context,
+                final DataTableSpec inSpec) {
+            final SimpleColumnMappingService mapping =
+                    context.getService(SimpleColumnMappingService.class);
+            for (final ModuleItem<?> input : m_module.getInfo().inputs()) {
+                final Class<?> type = input.getType();
+                if (Service.class.isAssignableFrom(type)
+                        || Context.class.isAssignableFrom(type)) {
+                    continue;
+                }
+                final int index = findColumn(inSpec, input,
+                        mapping.getMappedColumn(input.getName()));
+                final Function<DataCell, Object> converter =
+                        PrimitiveCellConverters.getValueConverter(type);
+                if (index < 0 || converter == null) {
+                    continue;
+                }
+                m_boundInputs.add(input.getName());
+                m_boundColumns.add(index);
+                m_boundConverters.add(converter);
+                m_bindingPlan.bind(input.getName());
+            }
+        }
+
+        /*
+         * Set the bound inputs from the cells of the row. Returns false if a
+         * cell is missing, its input is then left to the preprocessors.
+         */
+        private boolean setBoundInputs(final DataRow row) {
+            boolean complete = true;
+            for (int i = 0; i < m_boundInputs.size(); ++i) {
+                final DataCell cell = row.getCell(m_boundColumns.get(i));
+                if (cell.isMissing()) {
+                    complete = false;
+                    continue;
+                }
+                final String name = m_boundInputs.get(i);
+                m_module.setInput(name, m_boundConverters.get(i).apply(cell));
+                m_module.setResolved(name, true);
+            }
+            return complete;
         }
 
         protected DataColumnSpec[] createDataColumnSpecs(DataTableSpec inSpec) {
@@ -390,6 +1184,13 @@ public class SciJavaScriptingNodeModel extends NodeModel {
 
                 tableSpecs.add(
                         nameGen.newColumn(output.getName() + suffix, type));
+
+                // NB: only use a fast converter if it creates the same type
+                m_outputNames.add(output.getName());
+                m_outputConverters.add(type.equals(
+                        PrimitiveCellConverters.getDataType(output.getType()))
+                                ? PrimitiveCellConverters.getCellConverter(type)
+                                : null);
             }
 
             return tableSpecs.toArray(new DataColumnSpec[] {});
@@ -397,17 +1198,84 @@ public class SciJavaScriptingNodeModel extends NodeModel {
 
         @Override
         public DataCell[] getCells(final DataRow row) {
-            m_inputrowService.setInputDataRow(row);
+            // NB: the script is a pure function of the cells it reads, so
+            // the results of repeated inputs can be reused
+            final List<DataCell> key = (m_results == null) ? null
+                    : ResultCache.createKey(row, m_keyColumns,
+                            m_keyWithRowKey);
+            if (key != null) {
+                final DataCell[] cached = m_results.get(key);
+                m_metrics.recordMemoization(cached != null);
+                if (cached != null) {
+                    m_metrics.recordOutput(cached);
+                    return cached;
+                }
+            }
 
+            m_inputRowService.setInputDataRow(row);
+
+            // NB: only some rows are timed, see ExecutionMetrics
+            final boolean timed = ExecutionMetrics.isTimed(m_rowIndex++);
+            final long start = timed ? System.nanoTime() : 0;
             try {
-                m_moduleService.run(m_module, true).get();
-            } catch (InterruptedException | ExecutionException e) {
+                if (m_bindingPlan != null) {
+                    // NB: bound inputs are set directly, the preprocessors
+                    // only run for inputs which could not be bound
+                    if (!setBoundInputs(row)
+                            || m_bindingPlan.isPreprocessing()) {
+                        m_bindingPlan.preProcess(m_module);
+                    }
+                    final long preprocessed = timed ? System.nanoTime() : 0;
+                    m_module.run();
+                    final long ran = timed ? System.nanoTime() : 0;
+
+                    // NB: with fast outputs, the outputs are converted by
+                    // this factory and the postprocessors are not needed.
+                    if (!m_fastOutputs) {
+                        m_bindingPlan.postProcess(m_module);
+                    }
+                    if (timed) {
+                        m_metrics.record(Phase.PREPROCESS,
+                                preprocessed - start);
+                        m_metrics.record(Phase.RUN, ran - preprocessed);
+                        if (!m_fastOutputs) {
+                            m_metrics.record(Phase.POSTPROCESS,
+                                    System.nanoTime() - ran);
+                        }
+                    }
+                } else if (m_fastOutputs) {
+                    // NB: the outputs are converted by this factory, the
+                    // postprocessors would convert them a second time.
+                    m_moduleService.run(m_module,
+                            m_pluginService.createInstancesOfType(
+                                    PreprocessorPlugin.class),
+                            Collections.<PostprocessorPlugin> emptyList(),
+                            Collections.<String, Object> emptyMap()).get();
+                    if (timed) {
+                        m_metrics.record(Phase.RUN, System.nanoTime() - start);
+                    }
+                } else {
+                    // NB: the module service runs pre- and postprocessors,
+                    // which can not be measured separately.
+                    m_moduleService.run(m_module, true).get();
+                    if (timed) {
+                        m_metrics.record(Phase.RUN, System.nanoTime() - start);
+                    }
+                }
+            } catch (InterruptedException | ExecutionException
+                    | ModuleException e) {
                 throw new IllegalStateException(
                         "Module execution failed in Row: " + row.getKey()
                                 + ": \n" + " " + e);
             }
 
-            final DataCell[] cells = m_outputrowService.getOutputDataCells();
+            final long converting = timed ? System.nanoTime() : 0;
+            final DataCell[] cells = m_fastOutputs ? convertOutputs()
+                    : m_outputRowService.getOutputDataCells();
+            if (timed) {
+                m_metrics.record(Phase.CONVERT,
+                        System.nanoTime() - converting);
+            }
             for (DataCell cell : cells) {
                 if (cell == null) {
                     throw new IllegalStateException(
@@ -415,9 +1283,27 @@ public class SciJavaScriptingNodeModel extends NodeModel {
                                     + " syntax of your script and the log messages!");
                 }
             }
+            m_metrics.recordOutput(cells);
 
-            m_compileProduct.resetModule(m_module);
+            resetModule();
 
+            if (key != null) {
+                m_results.put(key, cells);
+            }
+            return cells;
+        }
+
+        /*
+         * Create the cells from the outputs of the module. Outputs without a
+         * value result in null cells.
+         */
+        private DataCell[] convertOutputs() {
+            final DataCell[] cells = new DataCell[m_outputNames.size()];
+            for (int i = 0; i < cells.length; ++i) {
+                final Object value = m_module.getOutput(m_outputNames.get(i));
+                cells[i] = (value == null) ? null
+                        : m_outputConverters.get(i).apply(value);
+            }
             return cells;
         }
 
@@ -429,73 +1315,667 @@ public class SciJavaScriptingNodeModel extends NodeModel {
         @Override
         public void setProgress(final int curRowNr, final int rowCount,
                 final RowKey lastKey, final ExecutionMonitor exec) {
-            /* How does this help the cause? */
+            final String message = String.format(Locale.ROOT,
+                    "Processed row %d (%.0f rows/s)", curRowNr,
+                    m_metrics.getRowsPerSecond());
+            if (rowCount > 0) {
+                exec.setProgress((double) curRowNr / rowCount, message);
+            } else {
+                exec.setMessage(message);
+            }
         }
 
         protected void resetModule() {
-            m_compileProduct.resetModule(m_module);
+            if (m_bindingPlan != null) {
+                m_bindingPlan.reset(m_module, m_product);
+            } else {
+                m_product.resetModule(m_module);
+            }
+        }
+
+        /*
+         * Whether the module may read the row key: it has an input accepting
+         * the row, its key or the service providing the row.
+         */
+        private boolean isRowKeyRead() {
+            for (final ModuleItem<?> input : m_module.getInfo().inputs()) {
+                final Class<?> type = input.getType();
+                if (InputDataRowService.class.isAssignableFrom(type)
+                        || DataRow.class.isAssignableFrom(type)
+                        || RowKey.class.isAssignableFrom(type)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Find the input columns the module reads: the columns mapped to its
+         * inputs, the default columns of its inputs and the columns named
+         * like its inputs.
+         *
+         * @return sorted indices of the columns read by the module,
+         *         <code>null</code> if it may read any column.
+         */
+        public int[] getReadColumns() {
+            final SortedSet<Integer> columns = new TreeSet<>();
+
+            // NB: the serialized mapping contains the names of the mapped
+            // columns, other entries do not match a column name
+            final String[] mapping = m_settings.getColumnInputMapping();
+            if (mapping != null) {
+                for (final String name : mapping) {
+                    if (name != null && m_inSpec.containsName(name)) {
+                        columns.add(m_inSpec.findColumnIndex(name));
+                    }
+                }
+            }
+
+            for (final ModuleItem<?> input : m_module.getInfo().inputs()) {
+                final Class<?> type = input.getType();
+                if (InputDataRowService.class.isAssignableFrom(type)
+                        || DataRow.class.isAssignableFrom(type)) {
+                    // NB: the module accesses the row directly
+                    return null;
+                }
+                if (Service.class.isAssignableFrom(type)
+                        || Context.class.isAssignableFrom(type)) {
+                    continue;
+                }
+
+                final String defaultColumn =
+                        input.get(KNIMESciJavaConstants.DEFAULT_COLUMN_KEY);
+                if (defaultColumn != null
+                        && m_inSpec.containsName(defaultColumn)) {
+                    columns.add(m_inSpec.findColumnIndex(defaultColumn));
+                }
+                if (m_inSpec.containsName(input.getName())) {
+                    columns.add(m_inSpec.findColumnIndex(input.getName()));
+                }
+            }
+
+            if (columns.size() == m_inSpec.getNumColumns()) {
+                return null;
+            }
+            final int[] indices = new int[columns.size()];
+            int i = 0;
+            for (final int index : columns) {
+                indices[i++] = index;
+            }
+            return indices;
+        }
+
+        /**
+         * @param product
+         *            the current compile product
+         * @param inSpec
+         *            the current input spec
+         * @param settingsHash
+         *            hash of the current settings
+         * @return whether this factory was created for the given compile
+         *         product, input spec and settings, so that it can be reused
+         */
+        public boolean isReusable(final CompileProductHelper product,
+                final DataTableSpec inSpec, final String settingsHash) {
+            return !m_disposed && m_product == product
+                    && m_inSpec.equals(inSpec)
+                    && m_settingsHash.equals(settingsHash)
+                    && (m_bindingPlan != null) == m_settings
+                            .isDirectInvocation()
+                    && (m_results != null) == m_settings.isMemoize();
+        }
+
+        /**
+         * Release resources held by the module of this factory and dispose
+         * the context if the factory owns it.
+         */
+        public void dispose() {
+            if (!m_disposed) {
+                m_disposed = true;
+                try {
+                    m_product.releaseModule(m_module);
+                } finally {
+                    if (m_ownsContext) {
+                        getContext().dispose();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * CellFactory which executes rows concurrently on a pool of
+     * {@link ScriptingCellFactory}s. Every pooled factory is used by at most
+     * one thread at a time.
+     */
+    protected class ParallelScriptingCellFactory extends AbstractCellFactory {
+
+        private final BlockingQueue<ScriptingCellFactory> m_pool;
+        private final int m_size;
+
+        /**
+         * Constructor.
+         *
+         * @param factories
+         *            factories with modules in distinct contexts
+         */
+        public ParallelScriptingCellFactory(
+                final List<ScriptingCellFactory> factories) {
+            super(factories.get(0).getColumnSpecs());
+            m_size = factories.size();
+            m_pool = new ArrayBlockingQueue<>(m_size, false, factories);
+
+            // NB: queue some rows per worker to keep workers busy while
+            // waiting for a slow row at the head of the queue.
+            setParallelProcessing(true, factories.size(),
+                    4 * factories.size());
+        }
+
+        @Override
+        public DataCell[] getCells(final DataRow row) {
+            final ScriptingCellFactory factory;
+            try {
+                factory = m_pool.take();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(
+                        "Interrupted while waiting for a module.", e);
+            }
+
+            // NB: rows are computed on threads of the KNIME thread pool, which
+            // do not know about the scijava plugins.
+            try (final TempClassLoader cl = new TempClassLoader(
+                    ScriptingGateway.get().createUrlClassLoader())) {
+                return factory.getCells(row);
+            } finally {
+                m_pool.add(factory);
+            }
+        }
+
+        /**
+         * Wait until all pooled factories were returned by the workers, e.g.
+         * after a canceled execution, so that they can be disposed. Gives up
+         * after a timeout for scripts which ignore cancellation.
+         */
+        public void awaitWorkers() {
+            final List<ScriptingCellFactory> idle = new ArrayList<>(m_size);
+            final long deadline = System.nanoTime()
+                    + TimeUnit.SECONDS.toNanos(WORKER_TIMEOUT_SECONDS);
+            boolean interrupted = false;
+            try {
+                while (idle.size() < m_size) {
+                    try {
+                        final ScriptingCellFactory factory = m_pool.poll(
+                                deadline - System.nanoTime(),
+                                TimeUnit.NANOSECONDS);
+                        if (factory == null) {
+                            LOGGER.warn((m_size - idle.size())
+                                    + " script workers did not finish within "
+                                    + WORKER_TIMEOUT_SECONDS + " seconds.");
+                            return;
+                        }
+                        idle.add(factory);
+                    } catch (final InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                m_pool.addAll(idle);
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Executes a module on batches of rows. Column inputs receive the values
+     * of all rows of a batch as array or list and every output returns one
+     * value per row of the batch.
+     *
+     * @see BatchUtils
+     */
+    protected class BatchScriptingProcessor {
+
+        private final Module m_module;
+        private final CompileProductHelper m_product;
+        private final ModuleBindingPlan m_bindingPlan;
+        private final DataColumnSpec[] m_spec;
+
+        /* column inputs, the columns bound to them and their converters */
+        private final List<ModuleItem<?>> m_columnInputs = new ArrayList<>();
+        private final List<Integer> m_columnIndices = new ArrayList<>();
+        private final List<Function<DataCell, Object>> m_inputConverters =
+                new ArrayList<>();
+
+        /* outputs and the converters creating cells from their values */
+        private final List<ModuleItem<?>> m_outputs = new ArrayList<>();
+        private final List<Function<Object, DataCell>> m_outputConverters =
+                new ArrayList<>();
+
+        /* whether to append the outputs to the input rows */
+        private final boolean m_append = m_settings
+                .getColumnCreationMode() == ColumnCreationMode.APPEND_COLUMNS;
+
+        /**
+         * Constructor.
+         *
+         * @param context
+         *            context of the module
+         * @param inSpec
+         *            spec of the input table
+         * @param module
+         *            the module to execute
+         * @throws InvalidSettingsException
+         *             if an input can not be bound to a column or an input or
+         *             output type is not supported.
+         */
+        public BatchScriptingProcessor(final Context context,
+                final DataTableSpec inSpec, final Module module)
+                throws InvalidSettingsException {
+            m_module = module;
+            m_product = m_compileProduct;
+            m_bindingPlan = new ModuleBindingPlan(context, module.getInfo());
+            final SimpleColumnMappingService mapping =
+                    context.getService(SimpleColumnMappingService.class);
+
+            for (final ModuleItem<?> input : module.getInfo().inputs()) {
+                final Class<?> type = input.getType();
+                if (Service.class.isAssignableFrom(type)
+                        || Context.class.isAssignableFrom(type)) {
+                    continue;
+                }
+
+                // NB: bind the column mapped to the input in the dialog, the
+                // default column of the input or the column with the name of
+                // the input
+                final int index = findColumn(inSpec, input,
+                        mapping.getMappedColumn(input.getName()));
+                if (index < 0) {
+                    if ("true".equals(input
+                            .get(KNIMESciJavaConstants.COLUMN_SELECT_KEY))) {
+                        throw new InvalidSettingsException(
+                                "No column found for input \""
+                                        + input.getName() + "\".");
+                    }
+                    continue;
+                }
+
+                // NB: scripts are dynamically typed, but the field of a Java
+                // command can not receive the list of values of a batch
+                if (!(module instanceof ScriptModule) && !type.isArray()
+                        && !type.isAssignableFrom(List.class)) {
+                    throw new InvalidSettingsException("Input \""
+                            + input.getName() + "\" of type " + type.getName()
+                            + " can not receive a batch, declare it as an"
+                            + " array or a List.");
+                }
+
+                final Class<?> elementType = BatchUtils.getElementType(input);
+                final Function<DataCell, Object> converter =
+                        PrimitiveCellConverters.getValueConverter(elementType);
+                if (converter == null) {
+                    throw new InvalidSettingsException("Input \""
+                            + input.getName() + "\" of type "
+                            + elementType.getName()
+                            + " is not supported in batches.");
+                }
+
+                m_columnInputs.add(input);
+                m_columnIndices.add(index);
+                m_inputConverters.add(converter);
+            }
+
+            final String suffix = m_settings.getColumnSuffixModel().isEnabled()
+                    ? m_settings.getColumnSuffix() : "";
+            final UniqueNameGenerator nameGen =
+                    new UniqueNameGenerator(inSpec);
+
+            final List<DataColumnSpec> specs = new ArrayList<>();
+            for (final ModuleItem<?> output : module.getInfo().outputs()) {
+                // FIXME Hack to supress autogenerated result output
+                if (output.getName().equals("result")) {
+                    continue;
+                }
+
+                final Class<?> elementType = BatchUtils.getElementType(output);
+                final DataType type =
+                        PrimitiveCellConverters.getDataType(elementType);
+                if (type == null) {
+                    throw new InvalidSettingsException("Output \""
+                            + output.getName() + "\" of type "
+                            + elementType.getName()
+                            + " is not supported in batches.");
+                }
+
+                m_outputs.add(output);
+                m_outputConverters
+                        .add(PrimitiveCellConverters.getCellConverter(type));
+                specs.add(nameGen.newColumn(output.getName() + suffix, type));
+            }
+            m_spec = specs.toArray(new DataColumnSpec[specs.size()]);
+        }
+
+
+        /**
+         * @return specs of the columns created from the module outputs
+         */
+        public DataColumnSpec[] getColumnSpecs() {
+            return m_spec;
+        }
+
+        /**
+         * @param inSpec
+         *            spec of the input table
+         * @return spec of the output table, depending on the column creation
+         *         mode.
+         */
+        public DataTableSpec createOutSpec(final DataTableSpec inSpec) {
+            if (m_append) {
+                return new DataTableSpec(inSpec, new DataTableSpec(m_spec));
+            }
+            return new DataTableSpec(m_spec);
+        }
+
+        /**
+         * Process all rows of the input in batches of the configured size.
+         * The output is closed and the module released afterwards.
+         *
+         * @param input
+         *            rows to process
+         * @param output
+         *            output for the processed rows
+         * @param exec
+         *            execution context to check for cancellation
+         * @throws Exception
+         */
+        public void process(final RowInput input, final RowOutput output,
+                final ExecutionContext exec) throws Exception {
+            final int batchSize = m_settings.getBatchSize();
+            final List<DataRow> batch = new ArrayList<>(batchSize);
+
+            try {
+                long count = 0;
+                DataRow row;
+                while ((row = input.poll()) != null) {
+                    batch.add(row);
+                    if (batch.size() == batchSize) {
+                        pushAll(processBatch(batch), output);
+                        count += batch.size();
+                        batch.clear();
+
+                        exec.checkCanceled();
+                        exec.setMessage("Processed " + count + " rows");
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    pushAll(processBatch(batch), output);
+                }
+            } finally {
+                m_product.releaseModule(m_module);
+            }
+
+            input.close();
+            output.close();
+        }
+
+        /*
+         * Run the module once for all rows in the batch.
+         */
+        private List<DataRow> processBatch(final List<DataRow> batch)
+                throws ModuleException {
+            final int size = batch.size();
+            final long start = System.nanoTime();
+
+            for (int i = 0; i < m_columnInputs.size(); ++i) {
+                final ModuleItem<?> input = m_columnInputs.get(i);
+                final int index = m_columnIndices.get(i);
+                final Function<DataCell, Object> converter =
+                        m_inputConverters.get(i);
+
+                final List<Object> values = new ArrayList<>(size);
+                for (final DataRow row : batch) {
+                    values.add(converter.apply(row.getCell(index)));
+                }
+                m_module.setInput(input.getName(),
+                        BatchUtils.toBatchValue(input, values));
+                m_module.setResolved(input.getName(), true);
+            }
+
+            // NB: the postprocessors would convert the outputs of a single
+            // row, which does not apply to batch outputs.
+            m_bindingPlan.preProcess(m_module);
+            final long preprocessed = System.nanoTime();
+            m_module.run();
+            final long ran = System.nanoTime();
+
+            final DataCell[][] cells = new DataCell[size][m_outputs.size()];
+            for (int o = 0; o < m_outputs.size(); ++o) {
+                final String name = m_outputs.get(o).getName();
+                final List<Object> values =
+                        BatchUtils.toList(m_module.getOutput(name));
+                if (values == null || values.size() != size) {
+                    throw new IllegalStateException("Output \"" + name
+                            + "\" did not return " + size
+                            + " values for the batch starting at row "
+                            + batch.get(0).getKey() + ".");
+                }
+                final Function<Object, DataCell> converter =
+                        m_outputConverters.get(o);
+                for (int r = 0; r < size; ++r) {
+                    cells[r][o] = converter.apply(values.get(r));
+                }
+            }
+
+            m_bindingPlan.reset(m_module, m_product);
+
+            m_metrics.record(Phase.PREPROCESS, preprocessed - start);
+            m_metrics.record(Phase.RUN, ran - preprocessed);
+            m_metrics.record(Phase.CONVERT, System.nanoTime() - ran);
+
+            final List<DataRow> rows = new ArrayList<>(size);
+            for (int r = 0; r < size; ++r) {
+                final DataRow row = batch.get(r);
+                m_metrics.recordOutput(cells[r]);
+                rows.add(m_append ? new AppendedColumnRow(row, cells[r])
+                        : new DefaultRow(row.getKey(), cells[r]));
+            }
+            return rows;
+        }
+
+        private void pushAll(final List<DataRow> rows, final RowOutput output)
+                throws InterruptedException {
+            for (final DataRow row : rows) {
+                output.push(row);
+            }
+        }
+    }
+
+    /**
+     * Executes a table script, a module which processes all rows of its
+     * {@link RowInput} in a single run and adds the output rows to its
+     * {@link ScriptRowOutput}. The outputs of the module only declare the
+     * output columns.
+     */
+    protected class TableScriptingProcessor {
+
+        private final Module m_module;
+        private final CompileProductHelper m_product;
+        private final ModuleBindingPlan m_bindingPlan;
+        private final DataTableSpec m_outSpec;
+
+        /* names of the inputs receiving the row input and output */
+        private final String m_rowInputName;
+        private final String m_rowOutputName;
+
+        /**
+         * Constructor.
+         *
+         * @param context
+         *            context of the module
+         * @param inSpec
+         *            spec of the input table
+         * @param module
+         *            the module to execute
+         * @throws InvalidSettingsException
+         *             if an output type is not supported.
+         */
+        public TableScriptingProcessor(final Context context,
+                final DataTableSpec inSpec, final Module module)
+                throws InvalidSettingsException {
+            m_module = module;
+            m_product = m_compileProduct;
+            m_bindingPlan = new ModuleBindingPlan(context, module.getInfo());
+            m_outSpec = createTableScriptSpec(module.getInfo(), inSpec);
+            m_rowInputName = findInput(module.getInfo(), RowInput.class);
+            m_rowOutputName =
+                    findInput(module.getInfo(), ScriptRowOutput.class);
+        }
+
+        /**
+         * Run the module once for all rows of the input. The input and output
+         * are closed afterwards.
+         *
+         * @param input
+         *            input rows
+         * @param output
+         *            output for the rows added by the script
+         * @param exec
+         *            execution context
+         * @param keyPrefix
+         *            prefix of the row keys generated for added rows
+         * @throws Exception
+         *             if the execution failed
+         */
+        public void process(final RowInput input, final RowOutput output,
+                final ExecutionContext exec, final String keyPrefix)
+                throws Exception {
+            try {
+                m_module.setInput(m_rowInputName,
+                        new ScriptRowInput(input, exec));
+                m_module.setResolved(m_rowInputName, true);
+                m_module.setInput(m_rowOutputName, new ScriptRowOutput(output,
+                        m_outSpec, m_metrics, exec, keyPrefix));
+                m_module.setResolved(m_rowOutputName, true);
+
+                // NB: the outputs are added by the script, so the
+                // postprocessors are not needed.
+                final long start = System.nanoTime();
+                m_bindingPlan.preProcess(m_module);
+                final long preprocessed = System.nanoTime();
+                try {
+                    m_module.run();
+                } catch (final RuntimeException e) {
+                    // NB: the row input and output stop a canceled script,
+                    // which may wrap their exception
+                    exec.checkCanceled();
+                    throw e;
+                }
+                m_metrics.record(Phase.PREPROCESS, preprocessed - start);
+                m_metrics.record(Phase.RUN, System.nanoTime() - preprocessed);
+            } finally {
+                m_product.releaseModule(m_module);
+            }
+
+            exec.checkCanceled();
+            input.close();
+            output.close();
         }
     }
 
     // --- streamable functions ---
 
     /**
-     * Streamable function for ScriptingNode.
+     * Streamable function for ScriptingNode. Every instance executes the rows
+     * of its partition with its own module in its own subcontext.
      *
      * @author Jonathan Hale
      */
     protected class ScriptingStreamableFunction extends StreamableFunction {
+
+        private final DataTableSpec m_inSpec;
+
         private TempClassLoader m_tempCl;
+        private ScriptingCellFactory m_factory;
+
+        /**
+         * Constructor.
+         *
+         * @param inSpec
+         *            spec of the input table
+         */
+        public ScriptingStreamableFunction(final DataTableSpec inSpec) {
+            m_inSpec = inSpec;
+        }
 
         /**
          * {@inheritDoc}
          */
         @Override
         public void init(final ExecutionContext exec) throws Exception {
-            // provide the KNIME data via Scijava services to module
-            m_executionService.setExecutionContext(exec);
+            startPartition();
 
             m_tempCl = new TempClassLoader(
                     ScriptingGateway.get().createUrlClassLoader());
+            // provide the KNIME data via Scijava services to module
+            m_factory = createConfinedCellFactory(m_inSpec, exec);
         }
 
         @Override
         public DataRow compute(final DataRow input) throws Exception {
-            return new DefaultRow(input.getKey(),
-                    m_cellFactory.getCells(input));
+            return new DefaultRow(input.getKey(), m_factory.getCells(input));
         }
 
         @Override
         public void finish() {
             super.finish();
+            if (m_factory != null) {
+                m_factory.dispose();
+            }
             m_tempCl.close();
+            finishPartition();
         }
     }
 
     /**
-     * Streamable function for ScriptingNode using a column rearranger.
+     * Streamable function for ScriptingNode using a column rearranger. Every
+     * instance executes the rows of its partition with its own module in its
+     * own subcontext.
      *
      * @author Jonathan Hale
      */
     protected class RearrangingScriptingStreamableFunction
             extends StreamableFunction {
 
-        private final StreamableFunction m_colRearrangerFunction;
+        private final DataTableSpec m_inSpec;
+
+        private TempClassLoader m_tempCl;
+        private ScriptingCellFactory m_factory;
+        private StreamableFunction m_colRearrangerFunction;
 
         /**
          * Constructor.
          *
-         * @param streamableFunction
-         *            Function of the column rearranger
+         * @param inSpec
+         *            spec of the input table
          */
         public RearrangingScriptingStreamableFunction(
-                final StreamableFunction streamableFunction) {
-            m_colRearrangerFunction = streamableFunction;
+                final DataTableSpec inSpec) {
+            m_inSpec = inSpec;
         }
 
         /** {@inheritDoc} */
         @Override
         public final void init(final ExecutionContext exec) throws Exception {
+            startPartition();
+
+            m_tempCl = new TempClassLoader(
+                    ScriptingGateway.get().createUrlClassLoader());
+            m_factory = createConfinedCellFactory(m_inSpec, exec);
+
+            final ColumnRearranger rearranger = new ColumnRearranger(m_inSpec);
+            rearranger.append(m_factory);
+            m_colRearrangerFunction = rearranger.createStreamableFunction();
             m_colRearrangerFunction.init(exec);
         }
 
@@ -517,6 +1997,9 @@ public class SciJavaScriptingNodeModel extends NodeModel {
         public final void finish() {
             m_colRearrangerFunction.finish();
             super.finish();
+            m_factory.dispose();
+            m_tempCl.close();
+            finishPartition();
         }
 
         /** {@inheritDoc} */
@@ -525,4 +2008,90 @@ public class SciJavaScriptingNodeModel extends NodeModel {
             return m_colRearrangerFunction.saveInternals();
         }
     }
+
+    /**
+     * Streamable operator for ScriptingNode which processes the rows in
+     * batches.
+     */
+    protected class BatchScriptingStreamableOperator
+            extends StreamableOperator {
+
+        /** {@inheritDoc} */
+        @Override
+        public void runFinal(final PortInput[] inputs,
+                final PortOutput[] outputs, final ExecutionContext exec)
+                throws Exception {
+            final RowInput input = (RowInput) inputs[0];
+            final DataTableSpec inSpec = input.getDataTableSpec();
+            startPartition();
+
+            try (final TempClassLoader cl = new TempClassLoader(
+                    ScriptingGateway.get().createUrlClassLoader())) {
+                // provide the KNIME data via Scijava services to module
+                final Context context = createConfinedContext(inSpec, exec);
+                try {
+                    new BatchScriptingProcessor(context, inSpec,
+                            createModule(getCurrentLanguage(), context))
+                                    .process(input, (RowOutput) outputs[0],
+                                            exec);
+                } finally {
+                    // NB: the processor released its module, the confined
+                    // context is owned by this partition
+                    context.dispose();
+                }
+            } finally {
+                finishPartition();
+            }
+        }
+    }
+
+    /**
+     * Streamable operator for ScriptingNode which runs a table script once
+     * per partition.
+     */
+    protected class TableScriptingStreamableOperator
+            extends StreamableOperator {
+
+        /* prefix of the row keys added by the script */
+        private final String m_keyPrefix;
+
+        /**
+         * Constructor.
+         *
+         * @param partitionInfo
+         *            partition executed by this operator
+         */
+        public TableScriptingStreamableOperator(
+                final PartitionInfo partitionInfo) {
+            // NB: row keys need to be unique over all partitions
+            m_keyPrefix = (partitionInfo.getPartitionCount() > 1)
+                    ? "Part" + partitionInfo.getPartitionIndex() + "_Row"
+                    : "Row";
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void runFinal(final PortInput[] inputs,
+                final PortOutput[] outputs, final ExecutionContext exec)
+                throws Exception {
+            final RowInput input = (RowInput) inputs[0];
+            final DataTableSpec inSpec = input.getDataTableSpec();
+            startPartition();
+
+            try (final TempClassLoader cl = new TempClassLoader(
+                    ScriptingGateway.get().createUrlClassLoader())) {
+                final Context context = createConfinedContext(inSpec, exec);
+                try {
+                    new TableScriptingProcessor(context, inSpec,
+                            createModule(getCurrentLanguage(), context))
+                                    .process(input, (RowOutput) outputs[0],
+                                            exec, m_keyPrefix);
+                } finally {
+                    context.dispose();
+                }
+            } finally {
+                finishPartition();
+            }
+        }
+    }
 }
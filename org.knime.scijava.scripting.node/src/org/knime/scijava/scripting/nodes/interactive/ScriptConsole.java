@@ -0,0 +1,286 @@
+package org.knime.scijava.scripting.nodes.interactive;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.knime.core.node.NodeLogger;
+import org.knime.core.util.FileUtil;
+
+/**
+ * Bounded, thread safe {@link Writer} for the console output of scripts.
+ * <p>
+ * Only the tail of the output is kept in memory, in a ring buffer of fixed
+ * capacity. Characters dropped from the ring buffer are spilled to a
+ * temporary file, which is rolled over to a backup file when it grows too
+ * large, so that a script printing for every row neither fills the heap nor
+ * the disk. Complete lines are optionally forwarded to a {@link NodeLogger},
+ * limited to a number of lines per second.
+ * </p>
+ */
+public class ScriptConsole extends Writer {
+
+    /** Default number of characters kept in memory */
+    public static final int DEFAULT_CAPACITY = 64 * 1024;
+
+    /* size of a spill file before it is rolled over */
+    private static final long MAX_SPILL_CHARS = 16 * 1024 * 1024;
+
+    private static final int MAX_LOG_LINES_PER_SECOND = 10;
+
+    /* longer lines are truncated when forwarded to the logger */
+    private static final int MAX_LOG_LINE_LENGTH = 1000;
+
+    private final char[] m_ring;
+    private int m_start = 0;
+    private int m_size = 0;
+    private long m_written = 0;
+
+    private final NodeLogger m_logger;
+    private final boolean m_error;
+    private final StringBuilder m_line = new StringBuilder();
+    private long m_logWindowStart = 0;
+    private int m_loggedLines = 0;
+    private long m_suppressedLines = 0;
+
+    private File m_spillFile = null;
+    private Writer m_spillWriter = null;
+    private long m_spilled = 0;
+    private boolean m_spillFailed = false;
+
+    /**
+     * Constructor for a console which does not forward its output.
+     */
+    public ScriptConsole() {
+        this(DEFAULT_CAPACITY, null, false);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param capacity
+     *            number of characters kept in memory
+     * @param logger
+     *            logger to forward lines to, may be <code>null</code>
+     * @param error
+     *            whether lines are forwarded as warnings instead of info
+     */
+    public ScriptConsole(final int capacity, final NodeLogger logger,
+            final boolean error) {
+        m_ring = new char[capacity];
+        m_logger = logger;
+        m_error = error;
+    }
+
+    @Override
+    public synchronized void write(final char[] cbuf, final int off,
+            final int len) {
+        if (len <= 0) {
+            return;
+        }
+        m_written += len;
+        forwardLines(cbuf, off, len);
+
+        int offset = off;
+        int length = len;
+        if (length > m_ring.length) {
+            // NB: the head of the input does not fit at all
+            spillRing(m_size);
+            spill(cbuf, offset, length - m_ring.length);
+            offset += length - m_ring.length;
+            length = m_ring.length;
+        }
+
+        final int free = m_ring.length - m_size;
+        if (length > free) {
+            spillRing(length - free);
+        }
+
+        final int end = (m_start + m_size) % m_ring.length;
+        final int first = Math.min(length, m_ring.length - end);
+        System.arraycopy(cbuf, offset, m_ring, end, first);
+        System.arraycopy(cbuf, offset + first, m_ring, 0, length - first);
+        m_size += length;
+    }
+
+    @Override
+    public synchronized void flush() {
+        if (m_spillWriter != null) {
+            try {
+                m_spillWriter.flush();
+            } catch (final IOException e) {
+                m_spillFailed = true;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        closeSpillWriter();
+    }
+
+    /**
+     * @return the output kept in memory
+     */
+    public synchronized String getTail() {
+        final char[] tail = new char[m_size];
+        final int first = Math.min(m_size, m_ring.length - m_start);
+        System.arraycopy(m_ring, m_start, tail, 0, first);
+        System.arraycopy(m_ring, 0, tail, first, m_size - first);
+        return new String(tail);
+    }
+
+    /**
+     * @return number of characters written since the last {@link #clear()}
+     */
+    public synchronized long getWrittenChars() {
+        return m_written;
+    }
+
+    /**
+     * @return file containing the output which does not fit into memory, or
+     *         <code>null</code> if nothing was spilled.
+     */
+    public synchronized File getSpillFile() {
+        return m_spillFile;
+    }
+
+    /**
+     * Remove all output, including the spill files.
+     */
+    public synchronized void clear() {
+        m_start = 0;
+        m_size = 0;
+        m_written = 0;
+        m_line.setLength(0);
+        m_suppressedLines = 0;
+
+        closeSpillWriter();
+        if (m_spillFile != null) {
+            getBackupFile(m_spillFile).delete();
+            m_spillFile.delete();
+            m_spillFile = null;
+        }
+        m_spilled = 0;
+        m_spillFailed = false;
+    }
+
+    /**
+     * @return the output kept in memory
+     */
+    @Override
+    public String toString() {
+        return getTail();
+    }
+
+    /*
+     * Remove characters from the head of the ring buffer, spilling them.
+     */
+    private void spillRing(final int count) {
+        final int first = Math.min(count, m_ring.length - m_start);
+        spill(m_ring, m_start, first);
+        spill(m_ring, 0, count - first);
+        m_start = (m_start + count) % m_ring.length;
+        m_size -= count;
+    }
+
+    private void spill(final char[] cbuf, final int off, final int len) {
+        if (len <= 0 || m_spillFailed) {
+            return;
+        }
+        try {
+            if (m_spillWriter == null) {
+                if (m_spillFile == null) {
+                    m_spillFile = FileUtil.createTempFile("script-console",
+                            ".log");
+                }
+                m_spillWriter = new BufferedWriter(new OutputStreamWriter(
+                        new FileOutputStream(m_spillFile, true),
+                        StandardCharsets.UTF_8));
+            }
+            m_spillWriter.write(cbuf, off, len);
+            m_spilled += len;
+
+            if (m_spilled > MAX_SPILL_CHARS) {
+                // NB: keep the previous file, so that at least
+                // MAX_SPILL_CHARS characters are available
+                closeSpillWriter();
+                final File backup = getBackupFile(m_spillFile);
+                backup.delete();
+                m_spillFile.renameTo(backup);
+                m_spilled = 0;
+            }
+        } catch (final IOException e) {
+            // NB: the output is dropped, the tail stays available
+            m_spillFailed = true;
+            closeSpillWriter();
+        }
+    }
+
+    private void closeSpillWriter() {
+        if (m_spillWriter != null) {
+            try {
+                m_spillWriter.close();
+            } catch (final IOException e) {
+                m_spillFailed = true;
+            }
+            m_spillWriter = null;
+        }
+    }
+
+    private static File getBackupFile(final File file) {
+        return new File(file.getPath() + ".1");
+    }
+
+    /*
+     * Forward the complete lines to the logger.
+     */
+    private void forwardLines(final char[] cbuf, final int off,
+            final int len) {
+        if (m_logger == null) {
+            return;
+        }
+        for (int i = off; i < off + len; ++i) {
+            final char c = cbuf[i];
+            if (c == '\n') {
+                log(m_line.toString());
+                m_line.setLength(0);
+            } else if (c != '\r' && m_line.length() < MAX_LOG_LINE_LENGTH) {
+                m_line.append(c);
+            }
+        }
+    }
+
+    private void log(final String line) {
+        final long now = System.nanoTime();
+        if (now - m_logWindowStart > TimeUnit.SECONDS.toNanos(1)) {
+            m_logWindowStart = now;
+            m_loggedLines = 0;
+        }
+        if (m_loggedLines >= MAX_LOG_LINES_PER_SECOND) {
+            ++m_suppressedLines;
+            return;
+        }
+
+        ++m_loggedLines;
+        if (m_suppressedLines > 0) {
+            logLine("(" + m_suppressedLines
+                    + " lines of script output were not logged)");
+            m_suppressedLines = 0;
+        }
+        logLine(line);
+    }
+
+    private void logLine(final String line) {
+        if (m_error) {
+            m_logger.warn(line);
+        } else {
+            m_logger.info(line);
+        }
+    }
+}
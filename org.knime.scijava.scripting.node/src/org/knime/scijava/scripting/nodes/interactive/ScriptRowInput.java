@@ -0,0 +1,74 @@
+package org.knime.scijava.scripting.nodes.interactive;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.streamable.RowInput;
+
+/**
+ * {@link RowInput} passed to table scripts, which checks whether the
+ * execution was canceled whenever the script polls a row. Scripts loop over
+ * all rows of the input, so canceling the node stops them at the next row.
+ * <p>
+ * The node closes the input after the script finished, closing it in the
+ * script has no effect.
+ * </p>
+ */
+public class ScriptRowInput extends RowInput {
+
+    private final RowInput m_input;
+    private final ExecutionMonitor m_exec;
+
+    /**
+     * Constructor.
+     *
+     * @param input
+     *            the input of the node
+     * @param exec
+     *            monitor to check for cancellation
+     */
+    public ScriptRowInput(final RowInput input, final ExecutionMonitor exec) {
+        m_input = input;
+        m_exec = exec;
+    }
+
+    @Override
+    public DataTableSpec getDataTableSpec() {
+        return m_input.getDataTableSpec();
+    }
+
+    @Override
+    public DataRow poll() throws InterruptedException {
+        checkCanceled(m_exec);
+        return m_input.poll();
+    }
+
+    @Override
+    public void close() {
+        // NB: the node closes the input after the script finished
+    }
+
+    /**
+     * Check for cancellation from a method which may only throw an
+     * {@link InterruptedException}, like the methods of row inputs and
+     * outputs.
+     *
+     * @param exec
+     *            monitor to check for cancellation
+     * @throws InterruptedException
+     *             if the execution was canceled, caused by the
+     *             {@link CanceledExecutionException}
+     */
+    static void checkCanceled(final ExecutionMonitor exec)
+            throws InterruptedException {
+        try {
+            exec.checkCanceled();
+        } catch (final CanceledExecutionException e) {
+            final InterruptedException interrupted =
+                    new InterruptedException(e.getMessage());
+            interrupted.initCause(e);
+            throw interrupted;
+        }
+    }
+}
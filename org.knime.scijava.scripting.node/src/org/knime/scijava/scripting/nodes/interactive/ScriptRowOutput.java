@@ -0,0 +1,163 @@
+package org.knime.scijava.scripting.nodes.interactive;
+
+import java.util.BitSet;
+import java.util.function.Function;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.streamable.RowOutput;
+
+/**
+ * {@link RowOutput} passed to table scripts, which process all rows of the
+ * input in a single run. A script either pushes {@link DataRow}s matching
+ * {@link #getDataTableSpec()} or adds the values of a row, which are
+ * converted to cells of the output columns.
+ * <p>
+ * Generated row keys consist of the key prefix and a number counting the
+ * added rows. A generated key is never used again for a pushed row: the
+ * numbers skip the keys of pushed rows which look like generated ones, and
+ * pushing a row with a key which was already generated fails.
+ * </p>
+ * <p>
+ * The node closes the output after the script finished, closing it in the
+ * script has no effect.
+ * </p>
+ */
+public class ScriptRowOutput extends RowOutput {
+
+    private final RowOutput m_output;
+    private final DataTableSpec m_spec;
+    private final Function<Object, DataCell>[] m_converters;
+    private final ExecutionMetrics m_metrics;
+    private final ExecutionMonitor m_exec;
+
+    /* prefix of the generated row keys */
+    private final String m_keyPrefix;
+
+    /* number of the next generated row key */
+    private int m_nextKey = 0;
+
+    /* numbers of the generated row keys */
+    private final BitSet m_generatedKeys = new BitSet();
+
+    /**
+     * Constructor.
+     *
+     * @param output
+     *            the output of the node
+     * @param spec
+     *            spec of the output rows
+     * @param metrics
+     *            metrics to count the output rows in
+     * @param exec
+     *            monitor to check for cancellation
+     * @param keyPrefix
+     *            prefix of the generated row keys, which must be unique for
+     *            every output of the node, e.g. for streaming partitions
+     */
+    @SuppressWarnings("unchecked")
+    public ScriptRowOutput(final RowOutput output, final DataTableSpec spec,
+            final ExecutionMetrics metrics, final ExecutionMonitor exec,
+            final String keyPrefix) {
+        m_output = output;
+        m_spec = spec;
+        m_metrics = metrics;
+        m_exec = exec;
+        m_keyPrefix = keyPrefix;
+        m_converters = new Function[spec.getNumColumns()];
+        for (int i = 0; i < m_converters.length; ++i) {
+            m_converters[i] = PrimitiveCellConverters
+                    .getCellConverter(spec.getColumnSpec(i).getType());
+        }
+    }
+
+    /**
+     * @return spec of the output rows
+     */
+    public DataTableSpec getDataTableSpec() {
+        return m_spec;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException
+     *             if the key of the row was generated for an added row
+     */
+    @Override
+    public void push(final DataRow row) throws InterruptedException {
+        final int number = parseGeneratedKey(row.getKey().getString());
+        if (number >= 0) {
+            if (m_generatedKeys.get(number)) {
+                throw new IllegalArgumentException("Row key "
+                        + row.getKey().getString()
+                        + " was already generated for an added row.");
+            }
+            m_nextKey = Math.max(m_nextKey, number + 1);
+        }
+        pushRow(row);
+    }
+
+    private void pushRow(final DataRow row) throws InterruptedException {
+        ScriptRowInput.checkCanceled(m_exec);
+        m_metrics.recordOutput(row);
+        m_output.push(row);
+    }
+
+    /*
+     * The number of a row key which looks like a generated one, -1 for other
+     * keys.
+     */
+    private int parseGeneratedKey(final String key) {
+        final int length = key.length() - m_keyPrefix.length();
+        if (length < 1 || length > 9 || !key.startsWith(m_keyPrefix)) {
+            return -1;
+        }
+        // NB: generated numbers have no leading zeros
+        if (length > 1 && key.charAt(m_keyPrefix.length()) == '0') {
+            return -1;
+        }
+        int number = 0;
+        for (int i = m_keyPrefix.length(); i < key.length(); ++i) {
+            final char c = key.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            number = 10 * number + (c - '0');
+        }
+        return number;
+    }
+
+    /**
+     * Add a row with a generated row key, converting the values to cells of
+     * the output columns. A <code>null</code> value results in a missing
+     * cell.
+     *
+     * @param values
+     *            one value per output column, in column order
+     * @throws InterruptedException
+     *             if interrupted while waiting for downstream nodes
+     */
+    public void add(final Object... values) throws InterruptedException {
+        if (values.length != m_converters.length) {
+            throw new IllegalArgumentException("Expected "
+                    + m_converters.length + " values, got " + values.length
+                    + ".");
+        }
+        final DataCell[] cells = new DataCell[values.length];
+        for (int i = 0; i < cells.length; ++i) {
+            cells[i] = m_converters[i].apply(values[i]);
+        }
+        m_generatedKeys.set(m_nextKey);
+        pushRow(new DefaultRow(new RowKey(m_keyPrefix + m_nextKey++), cells));
+    }
+
+    @Override
+    public void close() {
+        // NB: the node closes the output after the script finished
+    }
+}
@@ -0,0 +1,116 @@
+package org.knime.scijava.scripting.nodes.interactive;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of durations with exponentially growing buckets, the bucket
+ * <code>i</code> counting durations from <code>2^i</code> to
+ * <code>2^(i+1)</code> nanoseconds. Recording is lock free and uses
+ * {@link LongAdder}s, so that a histogram can be shared by concurrently
+ * executing modules without contending on the same memory.
+ */
+public class TimingHistogram {
+
+    /* 2^40 ns are about 18 minutes, longer durations go to the last bucket */
+    private static final int NUM_BUCKETS = 41;
+
+    private final LongAdder[] m_buckets = new LongAdder[NUM_BUCKETS];
+    private final LongAdder m_count = new LongAdder();
+    private final LongAdder m_sum = new LongAdder();
+    private final LongAccumulator m_max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Constructor.
+     */
+    public TimingHistogram() {
+        for (int i = 0; i < NUM_BUCKETS; ++i) {
+            m_buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Record a duration.
+     *
+     * @param nanos
+     *            the duration in nanoseconds
+     */
+    public void record(final long nanos) {
+        final long value = Math.max(0, nanos);
+        final int bucket = Math.min(NUM_BUCKETS - 1,
+                63 - Long.numberOfLeadingZeros(Math.max(1, value)));
+        m_buckets[bucket].increment();
+        m_count.increment();
+        m_sum.add(value);
+        m_max.accumulate(value);
+    }
+
+    /**
+     * Remove all recorded durations.
+     */
+    public void clear() {
+        for (final LongAdder bucket : m_buckets) {
+            bucket.reset();
+        }
+        m_count.reset();
+        m_sum.reset();
+        m_max.reset();
+    }
+
+    /**
+     * @return number of recorded durations
+     */
+    public long getCount() {
+        return m_count.sum();
+    }
+
+    /**
+     * @return sum of all recorded durations in nanoseconds
+     */
+    public long getTotal() {
+        return m_sum.sum();
+    }
+
+    /**
+     * @return mean of the recorded durations in nanoseconds, 0 if nothing was
+     *         recorded
+     */
+    public double getMean() {
+        final long count = m_count.sum();
+        return (count == 0) ? 0 : (double) m_sum.sum() / count;
+    }
+
+    /**
+     * @return longest recorded duration in nanoseconds
+     */
+    public long getMax() {
+        return m_max.get();
+    }
+
+    /**
+     * Estimate a percentile of the recorded durations. The estimate is the
+     * upper bound of the bucket containing the percentile, but never more
+     * than the longest recorded duration.
+     *
+     * @param percentile
+     *            the percentile, between 0 and 100
+     * @return the estimated percentile in nanoseconds, 0 if nothing was
+     *         recorded
+     */
+    public long getPercentile(final double percentile) {
+        final long count = m_count.sum();
+        if (count == 0) {
+            return 0;
+        }
+        final long rank =
+                Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < NUM_BUCKETS; ++i) {
+            seen += m_buckets[i].sum();
+            if (seen >= rank) {
+                return Math.min(m_max.get(), (1L << (i + 1)) - 1);
+            }
+        }
+        return m_max.get();
+    }
+}
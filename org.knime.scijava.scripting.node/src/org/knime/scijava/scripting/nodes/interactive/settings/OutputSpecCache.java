@@ -0,0 +1,150 @@
+package org.knime.scijava.scripting.nodes.interactive.settings;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+
+/**
+ * Output spec of the scripting node for a script and an input spec, saved
+ * with the node settings. Configuring the node after loading a workflow can
+ * then answer the output spec without compiling the script, which is
+ * compiled in the background instead.
+ * <p>
+ * The cache is keyed by a hash of all settings which determine the output
+ * columns, so a cache saved before the settings were changed in the dialog
+ * is not used. The node model creates the cache when it saves its settings,
+ * configuring the node does not change its settings.
+ * </p>
+ */
+public class OutputSpecCache {
+
+    private static final String KEY_HASH = "Hash";
+    private static final String KEY_IN_SPEC = "InputSpec";
+    private static final String KEY_OUT_SPEC = "OutputSpec";
+
+    private final String m_hash;
+    private final DataTableSpec m_inSpec;
+    private final DataTableSpec m_outSpec;
+
+    /**
+     * Constructor.
+     *
+     * @param hash
+     *            hash created by {@link #createHash}
+     * @param inSpec
+     *            the input spec
+     * @param outSpec
+     *            the output spec for the settings and the input spec
+     */
+    public OutputSpecCache(final String hash, final DataTableSpec inSpec,
+            final DataTableSpec outSpec) {
+        m_hash = hash;
+        m_inSpec = inSpec;
+        m_outSpec = outSpec;
+    }
+
+    /**
+     * @param hash
+     *            hash of the current settings
+     * @param inSpec
+     *            the current input spec
+     * @return whether the cached output spec is valid for the hash and the
+     *         input spec
+     */
+    public boolean matches(final String hash, final DataTableSpec inSpec) {
+        return m_hash.equals(hash) && m_inSpec.equals(inSpec);
+    }
+
+    /**
+     * @return the hash of the settings the output spec was created for
+     */
+    public String getHash() {
+        return m_hash;
+    }
+
+    /**
+     * @return the cached output spec
+     */
+    public DataTableSpec getOutSpec() {
+        return m_outSpec;
+    }
+
+    /**
+     * Save the cache to the given settings.
+     *
+     * @param settings
+     *            settings to add the cache to
+     */
+    public void saveTo(final NodeSettingsWO settings) {
+        settings.addString(KEY_HASH, m_hash);
+        m_inSpec.save(settings.addNodeSettings(KEY_IN_SPEC));
+        m_outSpec.save(settings.addNodeSettings(KEY_OUT_SPEC));
+    }
+
+    /**
+     * Load a cache saved with {@link #saveTo(NodeSettingsWO)}.
+     *
+     * @param settings
+     *            the settings
+     * @return the cache
+     * @throws InvalidSettingsException
+     *             if the settings do not contain a cache
+     */
+    public static OutputSpecCache loadFrom(final NodeSettingsRO settings)
+            throws InvalidSettingsException {
+        return new OutputSpecCache(settings.getString(KEY_HASH),
+                DataTableSpec.load(settings.getNodeSettings(KEY_IN_SPEC)),
+                DataTableSpec.load(settings.getNodeSettings(KEY_OUT_SPEC)));
+    }
+
+    /**
+     * Create a hash of the settings which determine the output spec.
+     *
+     * @param settings
+     *            the node settings
+     * @return hex encoded SHA-256 hash
+     */
+    public static String createHash(
+            final SciJavaScriptingNodeSettings settings) {
+        final String suffix = settings.getColumnSuffixModel().isEnabled()
+                ? settings.getColumnSuffix() : "";
+        final String[] values = { settings.getScriptLanguageName(),
+                settings.getScriptCode(),
+                settings.getColumnCreationMode().toString(), suffix,
+                Boolean.toString(settings.getBatchSize() > 0) };
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (final String value : values) {
+                update(digest, value);
+            }
+
+            // NB: the mapping determines the input columns of the script,
+            // whose types may determine the output columns
+            final String[] mapping = settings.getColumnInputMapping();
+            update(digest, Integer.toString(mapping.length));
+            for (final String entry : mapping) {
+                update(digest, entry);
+            }
+
+            final StringBuilder builder = new StringBuilder();
+            for (final byte b : digest.digest()) {
+                builder.append(String.format("%02x", b));
+            }
+            return builder.toString();
+        } catch (final NoSuchAlgorithmException e) {
+            // NB: every JVM provides SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void update(final MessageDigest digest,
+            final String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+}
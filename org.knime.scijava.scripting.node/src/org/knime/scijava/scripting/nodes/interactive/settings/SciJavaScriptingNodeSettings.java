@@ -4,9 +4,12 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeSettings;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
 import org.knime.core.node.defaultnodesettings.SettingsModel;
+import org.knime.core.node.defaultnodesettings.SettingsModelBoolean;
+import org.knime.core.node.defaultnodesettings.SettingsModelIntegerBounded;
 import org.knime.core.node.defaultnodesettings.SettingsModelString;
 import org.knime.core.node.defaultnodesettings.SettingsModelStringArray;
 import org.knime.scijava.commands.settings.NodeSettingsService;
@@ -35,6 +38,15 @@ public class SciJavaScriptingNodeSettings {
     public static final String SM_KEY_COLUMN_SUFFIX = "ColumnSuffix";
     public static final String SM_KEY_OTHER_SETTINGS = "OtherSettings";
     public static final String SM_KEY_EDITMODE = "EditorMode";
+    public static final String SM_KEY_PARALLELISM = "Parallelism";
+    public static final String SM_KEY_DIRECT_INVOCATION = "DirectInvocation";
+    public static final String SM_KEY_BATCH_SIZE = "BatchSize";
+    public static final String SM_KEY_METRICS_FLOW_VARIABLES =
+            "MetricsFlowVariables";
+    public static final String SM_KEY_PIPELINED = "PipelinedExecution";
+    public static final String SM_KEY_RETAIN_MODULES = "RetainModules";
+    public static final String SM_KEY_MEMOIZE = "MemoizeResults";
+    public static final String SM_KEY_OUTPUT_SPEC_CACHE = "OutputSpecCache";
 
     /* contains the mode (code / dialog ) of the node */
     private final SettingsModelString m_editModeModel = createEditModeModel();
@@ -58,9 +70,51 @@ public class SciJavaScriptingNodeSettings {
     private final SettingsModelString m_columnSuffixModel =
             createColumnSuffixModel(m_columnCreationModeModel);
 
+    /* contains the number of modules executing rows concurrently */
+    private final SettingsModelIntegerBounded m_parallelismModel =
+            createParallelismModel();
+
+    /* contains whether modules are run without the module service */
+    private final SettingsModelBoolean m_directInvocationModel =
+            createDirectInvocationModel();
+
+    /* contains the number of rows passed to a module per run */
+    private final SettingsModelIntegerBounded m_batchSizeModel =
+            createBatchSizeModel();
+
+    /* contains whether execution metrics are pushed as flow variables */
+    private final SettingsModelBoolean m_metricsFlowVariablesModel =
+            createMetricsFlowVariablesModel();
+
+    /* contains whether rows are read and written on separate threads */
+    private final SettingsModelBoolean m_pipelinedModel =
+            createPipelinedModel();
+
+    /* contains whether modules are kept for the next execution */
+    private final SettingsModelBoolean m_retainModulesModel =
+            createRetainModulesModel();
+
+    /* contains whether results are reused for repeated inputs */
+    private final SettingsModelBoolean m_memoizeModel = createMemoizeModel();
+
+    /* output spec saved with the settings, null if unknown */
+    private OutputSpecCache m_outputSpecCache = null;
+
+    /*
+     * settings of the NodeSettingsService, kept while loaded without a
+     * service, null otherwise
+     */
+    private NodeSettings m_deferredServiceSettings = null;
+
     private final List<SettingsModel> m_dialogSettingsModels;
     private final List<SettingsModel> m_codeEditSettingsModels;
 
+    /*
+     * Settings which were added after the first release and may therefore be
+     * missing in settings of older workflows.
+     */
+    private final List<SettingsModel> m_executionSettingsModels;
+
     public SciJavaScriptingNodeSettings() {
 
         m_dialogSettingsModels = new ArrayList<>();
@@ -71,6 +125,15 @@ public class SciJavaScriptingNodeSettings {
         m_codeEditSettingsModels = new ArrayList<>();
         m_codeEditSettingsModels.add(m_scriptLanguageModel);
         m_codeEditSettingsModels.add(m_codeModel);
+
+        m_executionSettingsModels = new ArrayList<>();
+        m_executionSettingsModels.add(m_parallelismModel);
+        m_executionSettingsModels.add(m_directInvocationModel);
+        m_executionSettingsModels.add(m_batchSizeModel);
+        m_executionSettingsModels.add(m_metricsFlowVariablesModel);
+        m_executionSettingsModels.add(m_pipelinedModel);
+        m_executionSettingsModels.add(m_retainModulesModel);
+        m_executionSettingsModels.add(m_memoizeModel);
     }
 
     /**
@@ -145,6 +208,80 @@ public class SciJavaScriptingNodeSettings {
         return suffixModel;
     }
 
+    /**
+     * Create parallelism SettingsModel with default <code>1</code>, which
+     * executes all rows sequentially in a single module.
+     *
+     * @return SettingsModel for the number of concurrently executing modules
+     */
+    public static SettingsModelIntegerBounded createParallelismModel() {
+        return new SettingsModelIntegerBounded(SM_KEY_PARALLELISM, 1, 1, 1024);
+    }
+
+    /**
+     * Create direct invocation SettingsModel with default <code>false</code>,
+     * which runs every row through the module service.
+     *
+     * @return SettingsModel for the direct invocation mode
+     */
+    public static SettingsModelBoolean createDirectInvocationModel() {
+        return new SettingsModelBoolean(SM_KEY_DIRECT_INVOCATION, false);
+    }
+
+    /**
+     * Create batch size SettingsModel with default <code>0</code>, which
+     * passes single rows to the module. Values greater than zero pass that
+     * many rows at once as arrays or lists.
+     *
+     * @return SettingsModel for the batch size
+     */
+    public static SettingsModelIntegerBounded createBatchSizeModel() {
+        return new SettingsModelIntegerBounded(SM_KEY_BATCH_SIZE, 0, 0,
+                Integer.MAX_VALUE);
+    }
+
+    /**
+     * Create metrics flow variables SettingsModel with default
+     * <code>false</code>, which does not push execution metrics as flow
+     * variables.
+     *
+     * @return SettingsModel for pushing metrics flow variables
+     */
+    public static SettingsModelBoolean createMetricsFlowVariablesModel() {
+        return new SettingsModelBoolean(SM_KEY_METRICS_FLOW_VARIABLES, false);
+    }
+
+    /**
+     * Create pipelined execution SettingsModel with default
+     * <code>false</code>, which reads, processes and writes the rows on the
+     * executing thread.
+     *
+     * @return SettingsModel for the pipelined execution
+     */
+    public static SettingsModelBoolean createPipelinedModel() {
+        return new SettingsModelBoolean(SM_KEY_PIPELINED, false);
+    }
+
+    /**
+     * Create retain modules SettingsModel with default <code>false</code>,
+     * which creates new modules for every execution.
+     *
+     * @return SettingsModel for retaining modules across executions
+     */
+    public static SettingsModelBoolean createRetainModulesModel() {
+        return new SettingsModelBoolean(SM_KEY_RETAIN_MODULES, false);
+    }
+
+    /**
+     * Create memoize SettingsModel with default <code>false</code>, which
+     * runs the script for every row.
+     *
+     * @return SettingsModel for memoizing the results of the script
+     */
+    public static SettingsModelBoolean createMemoizeModel() {
+        return new SettingsModelBoolean(SM_KEY_MEMOIZE, false);
+    }
+
     // ---- getters -----
 
     /**
@@ -183,6 +320,65 @@ public class SciJavaScriptingNodeSettings {
         return m_columnSuffixModel.getStringValue();
     }
 
+    /**
+     * @return value of setting with key {@link #SM_KEY_PARALLELISM}.
+     */
+    public int getParallelism() {
+        return m_parallelismModel.getIntValue();
+    }
+
+    /**
+     * @return value of setting with key {@link #SM_KEY_DIRECT_INVOCATION}.
+     */
+    public boolean isDirectInvocation() {
+        return m_directInvocationModel.getBooleanValue();
+    }
+
+    /**
+     * @return value of setting with key {@link #SM_KEY_BATCH_SIZE}.
+     */
+    public int getBatchSize() {
+        return m_batchSizeModel.getIntValue();
+    }
+
+    /**
+     * @return value of setting with key
+     *         {@link #SM_KEY_METRICS_FLOW_VARIABLES}.
+     */
+    public boolean isMetricsFlowVariables() {
+        return m_metricsFlowVariablesModel.getBooleanValue();
+    }
+
+    /**
+     * @return value of setting with key {@link #SM_KEY_PIPELINED}.
+     */
+    public boolean isPipelined() {
+        return m_pipelinedModel.getBooleanValue();
+    }
+
+    /**
+     * @return value of setting with key {@link #SM_KEY_RETAIN_MODULES}.
+     */
+    public boolean isRetainModules() {
+        return m_retainModulesModel.getBooleanValue();
+    }
+
+    /**
+     * @return value of setting with key {@link #SM_KEY_MEMOIZE}.
+     */
+    public boolean isMemoize() {
+        return m_memoizeModel.getBooleanValue();
+    }
+
+    /**
+     * @return the output spec cache with key
+     *         {@link #SM_KEY_OUTPUT_SPEC_CACHE}, <code>null</code> if not
+     *         available.
+     */
+    public OutputSpecCache getOutputSpecCache() {
+        return m_outputSpecCache;
+    }
+
     // ---- access to models ----
 
     /**
@@ -220,6 +416,55 @@ public class SciJavaScriptingNodeSettings {
         return m_columnSuffixModel;
     }
 
+    /**
+     * @return model with key {@link #SM_KEY_PARALLELISM}.
+     */
+    public SettingsModelIntegerBounded getParallelismModel() {
+        return m_parallelismModel;
+    }
+
+    /**
+     * @return model with key {@link #SM_KEY_DIRECT_INVOCATION}.
+     */
+    public SettingsModelBoolean getDirectInvocationModel() {
+        return m_directInvocationModel;
+    }
+
+    /**
+     * @return model with key {@link #SM_KEY_BATCH_SIZE}.
+     */
+    public SettingsModelIntegerBounded getBatchSizeModel() {
+        return m_batchSizeModel;
+    }
+
+    /**
+     * @return model with key {@link #SM_KEY_METRICS_FLOW_VARIABLES}.
+     */
+    public SettingsModelBoolean getMetricsFlowVariablesModel() {
+        return m_metricsFlowVariablesModel;
+    }
+
+    /**
+     * @return model with key {@link #SM_KEY_PIPELINED}.
+     */
+    public SettingsModelBoolean getPipelinedModel() {
+        return m_pipelinedModel;
+    }
+
+    /**
+     * @return model with key {@link #SM_KEY_RETAIN_MODULES}.
+     */
+    public SettingsModelBoolean getRetainModulesModel() {
+        return m_retainModulesModel;
+    }
+
+    /**
+     * @return model with key {@link #SM_KEY_MEMOIZE}.
+     */
+    public SettingsModelBoolean getMemoizeModel() {
+        return m_memoizeModel;
+    }
+
     // ---- setters ----
 
     /**
@@ -262,6 +507,74 @@ public class SciJavaScriptingNodeSettings {
         m_columnSuffixModel.setStringValue(suffix);
     }
 
+    /**
+     * @param parallelism
+     *            value to set for setting with key {@link #SM_KEY_PARALLELISM}.
+     */
+    public void setParallelism(final int parallelism) {
+        m_parallelismModel.setIntValue(parallelism);
+    }
+
+    /**
+     * @param directInvocation
+     *            value to set for setting with key
+     *            {@link #SM_KEY_DIRECT_INVOCATION}.
+     */
+    public void setDirectInvocation(final boolean directInvocation) {
+        m_directInvocationModel.setBooleanValue(directInvocation);
+    }
+
+    /**
+     * @param batchSize
+     *            value to set for setting with key {@link #SM_KEY_BATCH_SIZE}.
+     */
+    public void setBatchSize(final int batchSize) {
+        m_batchSizeModel.setIntValue(batchSize);
+    }
+
+    /**
+     * @param metricsFlowVariables
+     *            value to set for setting with key
+     *            {@link #SM_KEY_METRICS_FLOW_VARIABLES}.
+     */
+    public void setMetricsFlowVariables(final boolean metricsFlowVariables) {
+        m_metricsFlowVariablesModel.setBooleanValue(metricsFlowVariables);
+    }
+
+    /**
+     * @param pipelined
+     *            value to set for setting with key {@link #SM_KEY_PIPELINED}.
+     */
+    public void setPipelined(final boolean pipelined) {
+        m_pipelinedModel.setBooleanValue(pipelined);
+    }
+
+    /**
+     * @param retainModules
+     *            value to set for setting with key
+     *            {@link #SM_KEY_RETAIN_MODULES}.
+     */
+    public void setRetainModules(final boolean retainModules) {
+        m_retainModulesModel.setBooleanValue(retainModules);
+    }
+
+    /**
+     * @param memoize
+     *            value to set for setting with key {@link #SM_KEY_MEMOIZE}.
+     */
+    public void setMemoize(final boolean memoize) {
+        m_memoizeModel.setBooleanValue(memoize);
+    }
+
+    /**
+     * @param cache
+     *            the output spec cache to save with key
+     *            {@link #SM_KEY_OUTPUT_SPEC_CACHE}, may be <code>null</code>.
+     */
+    public void setOutputSpecCache(final OutputSpecCache cache) {
+        m_outputSpecCache = cache;
+    }
+
     // ---- loading / saving / validating ----
 
     /**
@@ -271,7 +584,8 @@ public class SciJavaScriptingNodeSettings {
      * @param settings
      *            the Settings
      * @param service
-     *            the service
+     *            the service, <code>null</code> to save the settings kept by
+     *            loading without a service
      */
     public void saveSettingsTo(final NodeSettingsWO settings,
             final NodeSettingsService service) {
@@ -288,8 +602,20 @@ public class SciJavaScriptingNodeSettings {
             for (final SettingsModel model : m_codeEditSettingsModels) {
                 model.saveSettingsTo(settings);
             }
-            service.saveSettingsTo(
-                    settings.addNodeSettings(SM_KEY_OTHER_SETTINGS));
+            for (final SettingsModel model : m_executionSettingsModels) {
+                model.saveSettingsTo(settings);
+            }
+            final NodeSettingsWO other =
+                    settings.addNodeSettings(SM_KEY_OTHER_SETTINGS);
+            if (service != null) {
+                service.saveSettingsTo(other);
+            } else if (m_deferredServiceSettings != null) {
+                m_deferredServiceSettings.copyTo(other);
+            }
+        }
+        if (m_outputSpecCache != null) {
+            m_outputSpecCache
+                    .saveTo(settings.addNodeSettings(SM_KEY_OUTPUT_SPEC_CACHE));
         }
     }
 
@@ -299,7 +625,8 @@ public class SciJavaScriptingNodeSettings {
      * @param settings
      *            the settings
      * @param settingsService
-     *            the settingsService
+     *            the settingsService, <code>null</code> to keep its settings
+     *            until {@link #loadDeferredSettings(NodeSettingsService)}
      * @param tolerant
      *            if the loading fails on errors or not
      * @throws InvalidSettingsException
@@ -323,10 +650,67 @@ public class SciJavaScriptingNodeSettings {
             for (final SettingsModel model : m_codeEditSettingsModels) {
                 model.loadSettingsFrom(settings);
             }
-            settingsService.loadSettingsFrom(
-                    settings.getNodeSettings(SM_KEY_OTHER_SETTINGS), tolerant);
+            loadExecutionSettingsFrom(settings);
+            final NodeSettingsRO other =
+                    settings.getNodeSettings(SM_KEY_OTHER_SETTINGS);
+            if (settingsService != null) {
+                settingsService.loadSettingsFrom(other, tolerant);
+                m_deferredServiceSettings = null;
+            } else {
+                m_deferredServiceSettings =
+                        new NodeSettings(SM_KEY_OTHER_SETTINGS);
+                other.copyTo(m_deferredServiceSettings);
+            }
         }
+        loadOutputSpecCacheFrom(settings);
+    }
 
+    /**
+     * Load the settings of the NodeSettingsService which were kept by loading
+     * without a service. Does nothing if there are none.
+     *
+     * @param settingsService
+     *            the settingsService
+     * @throws InvalidSettingsException
+     *             if the settings are invalid
+     */
+    public void loadDeferredSettings(final NodeSettingsService settingsService)
+            throws InvalidSettingsException {
+        if (m_deferredServiceSettings != null) {
+            settingsService.validateSettings(m_deferredServiceSettings);
+            settingsService.loadSettingsFrom(m_deferredServiceSettings, false);
+            m_deferredServiceSettings = null;
+        }
+    }
+
+    /*
+     * Load the execution settings. These are missing in workflows saved with
+     * older versions of the node, in which case the defaults are kept.
+     */
+    private void loadExecutionSettingsFrom(final NodeSettingsRO settings) {
+        for (final SettingsModel model : m_executionSettingsModels) {
+            try {
+                model.loadSettingsFrom(settings);
+            } catch (final InvalidSettingsException e) {
+                // NB: keep the default value
+            }
+        }
+    }
+
+    /*
+     * Load the output spec cache, which is only present if the node was
+     * configured before the settings were saved.
+     */
+    private void loadOutputSpecCacheFrom(final NodeSettingsRO settings) {
+        m_outputSpecCache = null;
+        if (settings.containsKey(SM_KEY_OUTPUT_SPEC_CACHE)) {
+            try {
+                m_outputSpecCache = OutputSpecCache.loadFrom(
+                        settings.getNodeSettings(SM_KEY_OUTPUT_SPEC_CACHE));
+            } catch (final InvalidSettingsException e) {
+                // NB: the output spec is created by compiling the script
+            }
+        }
     }
 
     public ScriptDialogMode getMode() {
@@ -338,6 +722,9 @@ public class SciJavaScriptingNodeSettings {
      *
      * @param settings
      *            the settings
+     * @param settingsService
+     *            the settingsService, <code>null</code> to only validate the
+     *            settings models
      * @throws InvalidSettingsException
      *             if the settings are invalid
      */
@@ -355,8 +742,11 @@ public class SciJavaScriptingNodeSettings {
             for (final SettingsModel model : m_dialogSettingsModels) {
                 model.validateSettings(settings);
             }
-            settingsService.validateSettings(
-                    settings.getNodeSettings(SM_KEY_OTHER_SETTINGS));
+            final NodeSettingsRO other =
+                    settings.getNodeSettings(SM_KEY_OTHER_SETTINGS);
+            if (settingsService != null) {
+                settingsService.validateSettings(other);
+            }
         }
     }
 
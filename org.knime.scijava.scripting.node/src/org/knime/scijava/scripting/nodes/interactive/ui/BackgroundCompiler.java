@@ -0,0 +1,151 @@
+package org.knime.scijava.scripting.nodes.interactive.ui;
+
+import java.io.Writer;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+import org.knime.scijava.core.TempClassLoader;
+import org.knime.scijava.scripting.base.CompileCache;
+import org.knime.scijava.scripting.base.CompileHelper;
+import org.knime.scijava.scripting.base.CompileProductHelper;
+import org.knime.scijava.scripting.base.ScriptingGateway;
+import org.scijava.Context;
+import org.scijava.script.ScriptLanguage;
+
+/**
+ * Compiles scripts for the node dialog on a background thread, so that the
+ * Swing event dispatch thread is not blocked by slow compilers.
+ * <p>
+ * A new request replaces a pending one, which allows debouncing compilation
+ * while the user is typing. Only the result of the latest request is
+ * reported, results of stale compilations which were already running are
+ * discarded. The scripts are drafts which are recompiled whenever the user
+ * stops typing, so their classes are not added to the {@link CompileCache}
+ * shared with the node models.
+ * </p>
+ */
+public class BackgroundCompiler {
+
+    /* single thread shared by all dialogs, compilers are not thread safe */
+    private static final ScheduledExecutorService EXECUTOR =
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                final Thread thread =
+                        new Thread(r, "SciJava Scripting Dialog Compiler");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final CompileHelper m_compiler;
+
+    private ScheduledFuture<?> m_pending = null;
+    private long m_generation = 0;
+
+    /**
+     * Listener for the result of a compilation. Called on the event dispatch
+     * thread.
+     */
+    public interface Listener {
+
+        /**
+         * @param product
+         *            the compiled script
+         */
+        void compiled(CompileProductHelper product);
+
+        /**
+         * @param e
+         *            the exception thrown by the compiler, details were written
+         *            to the error writer
+         */
+        void failed(Throwable e);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param context
+     *            context to compile the scripts in
+     * @param errorWriter
+     *            writer for compiler errors, written to from the compiler
+     *            thread
+     * @param outputWriter
+     *            writer for compiler output, written to from the compiler
+     *            thread
+     */
+    public BackgroundCompiler(final Context context, final Writer errorWriter,
+            final Writer outputWriter) {
+        m_compiler =
+                new CompileHelper(context, errorWriter, outputWriter, false);
+    }
+
+    /**
+     * Compile a script after the given delay, replacing the pending request.
+     *
+     * @param code
+     *            the script
+     * @param language
+     *            language of the script
+     * @param delayMillis
+     *            delay before compiling
+     * @param listener
+     *            notified of the result if no other request was made in the
+     *            meantime
+     */
+    public synchronized void compile(final String code,
+            final ScriptLanguage language, final long delayMillis,
+            final Listener listener) {
+        final long generation = cancel();
+        m_pending = EXECUTOR.schedule(() -> {
+            if (isCurrent(generation)) {
+                run(generation, code, language, listener);
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Cancel the pending request and discard the result of a running
+     * compilation.
+     *
+     * @return generation of the next request
+     */
+    public synchronized long cancel() {
+        if (m_pending != null) {
+            m_pending.cancel(false);
+            m_pending = null;
+        }
+        return ++m_generation;
+    }
+
+    private synchronized boolean isCurrent(final long generation) {
+        return generation == m_generation;
+    }
+
+    private void run(final long generation, final String code,
+            final ScriptLanguage language, final Listener listener) {
+        CompileProductHelper product = null;
+        Throwable error = null;
+        try (final TempClassLoader cl = new TempClassLoader(
+                ScriptingGateway.get().createUrlClassLoader())) {
+            product = m_compiler.compile(code, language);
+        } catch (final Exception e) {
+            error = e;
+        }
+
+        final CompileProductHelper result = product;
+        final Throwable exception = error;
+        SwingUtilities.invokeLater(() -> {
+            if (!isCurrent(generation)) {
+                return;
+            }
+            if (exception == null) {
+                listener.compiled(result);
+            } else {
+                listener.failed(exception);
+            }
+        });
+    }
+}
@@ -0,0 +1,120 @@
+package org.knime.scijava.scripting.nodes.interactive.ui;
+
+import java.awt.Font;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
+import javax.swing.Timer;
+
+import org.knime.core.node.NodeView;
+import org.knime.scijava.scripting.nodes.interactive.ExecutionMetrics;
+import org.knime.scijava.scripting.nodes.interactive.ExecutionMetrics.Phase;
+import org.knime.scijava.scripting.nodes.interactive.SciJavaScriptingNodeModel;
+import org.knime.scijava.scripting.nodes.interactive.TimingHistogram;
+
+/**
+ * NodeView showing the {@link ExecutionMetrics} of a
+ * {@link SciJavaScriptingNodeModel}. While open, the view is refreshed every
+ * second, so that the progress of a running execution can be followed.
+ */
+public class ExecutionMetricsNodeView
+        extends NodeView<SciJavaScriptingNodeModel> {
+
+    private static final int REFRESH_MILLIS = 1000;
+
+    private final JTextArea m_text = new JTextArea(24, 80);
+
+    private final Timer m_timer =
+            new Timer(REFRESH_MILLIS, e -> modelChanged());
+
+    /**
+     * Constructor.
+     *
+     * @param nodeModel
+     *            the node model to show the metrics of
+     */
+    public ExecutionMetricsNodeView(final SciJavaScriptingNodeModel nodeModel) {
+        super(nodeModel);
+        m_text.setEditable(false);
+        m_text.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        setComponent(new JScrollPane(m_text));
+        modelChanged();
+    }
+
+    @Override
+    protected void modelChanged() {
+        final SciJavaScriptingNodeModel model = getNodeModel();
+        m_text.setText((model == null) ? "" : format(model.getMetrics()));
+        m_text.setCaretPosition(0);
+    }
+
+    @Override
+    protected void onOpen() {
+        m_timer.start();
+    }
+
+    @Override
+    protected void onClose() {
+        m_timer.stop();
+    }
+
+    private static String format(final ExecutionMetrics metrics) {
+        final StringBuilder text = new StringBuilder();
+        line(text, "Compile time", millis(metrics.getCompileTime()));
+        if (!metrics.isAvailable()) {
+            text.append("\nThe node has not been executed yet.\n");
+            return text.toString();
+        }
+
+        line(text, "Context creation",
+                millis(metrics.getContextCreationTime()));
+        line(text, "Module creation", millis(metrics.getModuleCreationTime()));
+        line(text, "Execution time", millis(metrics.getExecutionTime()));
+        line(text, "Rows", Long.toString(metrics.getRows()));
+        line(text, "Rows per second", String.format(Locale.ROOT, "%.1f",
+                metrics.getRowsPerSecond()));
+        line(text, "Output cells", Long.toString(metrics.getCells()));
+        line(text, "Missing output cells",
+                Long.toString(metrics.getMissingCells()));
+        if (metrics.getMemoizationLookups() > 0) {
+            line(text, "Memoized rows", String.format(Locale.ROOT,
+                    "%d of %d (%.1f%%)", metrics.getMemoizationHits(),
+                    metrics.getMemoizationLookups(),
+                    100 * metrics.getMemoizationHitRate()));
+        }
+
+        text.append(String.format(Locale.ROOT,
+                "%n%-12s %10s %12s %12s %12s %12s %12s%n", "Phase [ms]",
+                "Count", "Total", "Mean", "50%", "99%", "Max"));
+        for (final Phase phase : Phase.values()) {
+            final TimingHistogram histogram = metrics.getHistogram(phase);
+            text.append(String.format(Locale.ROOT,
+                    "%-12s %10d %12.3f %12.3f %12.3f %12.3f %12.3f%n", phase,
+                    histogram.getCount(), toMillis(histogram.getTotal()),
+                    histogram.getMean() / TimeUnit.MILLISECONDS.toNanos(1),
+                    toMillis(histogram.getPercentile(50)),
+                    toMillis(histogram.getPercentile(99)),
+                    toMillis(histogram.getMax())));
+        }
+        text.append("\nPhases are measured per row, or per batch if a batch "
+                + "size is set.\nRuns through the module service include "
+                + "pre- and postprocessing.\n");
+        return text.toString();
+    }
+
+    private static void line(final StringBuilder text, final String label,
+            final String value) {
+        text.append(String.format("%-22s %s%n", label + ":", value));
+    }
+
+    private static String millis(final long nanos) {
+        return (nanos < 0) ? "-"
+                : String.format(Locale.ROOT, "%.3f ms", toMillis(nanos));
+    }
+
+    private static double toMillis(final long nanos) {
+        return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -53,8 +53,6 @@ import java.awt.GridBagLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
-import java.io.IOException;
-import java.io.StringWriter;
 import java.util.Arrays;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -69,6 +67,8 @@ import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JTextArea;
 import javax.swing.border.TitledBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 
 import org.fife.ui.rsyntaxtextarea.AbstractTokenMakerFactory;
 import org.fife.ui.rsyntaxtextarea.TokenMakerFactory;
@@ -79,6 +79,8 @@ import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
 import org.knime.core.node.NotConfigurableException;
 import org.knime.core.node.defaultnodesettings.DialogComponent;
+import org.knime.core.node.defaultnodesettings.DialogComponentBoolean;
+import org.knime.core.node.defaultnodesettings.DialogComponentNumber;
 import org.knime.core.node.defaultnodesettings.DialogComponentString;
 import org.knime.core.node.defaultnodesettings.DialogComponentStringSelection;
 import org.knime.core.node.defaultnodesettings.SettingsModelString;
@@ -90,6 +92,7 @@ import org.knime.scijava.scripting.base.CompileProductHelper;
 import org.knime.scijava.scripting.base.ScriptingGateway;
 import org.knime.scijava.scripting.nodes.interactive.SciJavaScriptingNodeFactory;
 import org.knime.scijava.scripting.nodes.interactive.SciJavaScriptingNodeModel;
+import org.knime.scijava.scripting.nodes.interactive.ScriptConsole;
 import org.knime.scijava.scripting.nodes.interactive.settings.ColumnCreationMode;
 import org.knime.scijava.scripting.nodes.interactive.settings.SciJavaScriptingNodeSettings;
 import org.knime.scijava.scripting.nodes.interactive.settings.ScriptDialogMode;
@@ -121,12 +124,15 @@ import org.scijava.ui.swing.widget.SwingInputPanel;
  */
 public class SciJavaScriptingNodeDialog extends NodeDialogPane {
 
+    /* delay between the last edit of the script and compiling it */
+    private static final long COMPILE_DELAY_MILLIS = 500;
+
     private final SciJavaScriptingNodeSettings m_settings =
             new SciJavaScriptingNodeSettings();
 
     /* script output and error writers */
-    StringWriter m_errorWriter;
-    StringWriter m_outputWriter;
+    ScriptConsole m_errorWriter;
+    ScriptConsole m_outputWriter;
 
     /* panel generated from current script */
     private final JPanel m_autogenPanel = new JPanel(new GridBagLayout());
@@ -158,7 +164,10 @@ public class SciJavaScriptingNodeDialog extends NodeDialogPane {
     /* listener for events generated by the components of m_gui */
     private SciJavaScriptingNodeDialogListener m_listener;
 
-    private CompileHelper m_compiler = null;
+    private BackgroundCompiler m_compiler = null;
+
+    /* result of compiling the script while it is edited */
+    private final JLabel m_compileStatus = new JLabel(" ");
 
     private SwingInputPanel m_inputPanel;
     private JComponent m_component = new JPanel();
@@ -176,8 +185,8 @@ public class SciJavaScriptingNodeDialog extends NodeDialogPane {
     public SciJavaScriptingNodeDialog(final Context scijavaContext)
             throws NotConfigurableException {
 
-        m_errorWriter = new StringWriter();
-        m_outputWriter = new StringWriter();
+        m_errorWriter = new ScriptConsole();
+        m_outputWriter = new ScriptConsole();
 
         m_context = scijavaContext;
         m_context.inject(this);
@@ -186,14 +195,8 @@ public class SciJavaScriptingNodeDialog extends NodeDialogPane {
         // This is required for the compiler to find classes on classpath
         try (final TempClassLoader tempCl = new TempClassLoader(
                 ScriptingGateway.get().createUrlClassLoader())) {
-            try {
-                m_compiler = new CompileHelper(m_context, m_errorWriter,
-                        m_outputWriter);
-            } catch (final IOException e) {
-                throw new NotConfigurableException(
-                        "Unable to create tmp directory to complile scripts: "
-                                + e);
-            }
+            m_compiler = new BackgroundCompiler(m_context, m_errorWriter,
+                    m_outputWriter);
 
             // Initialize syntax hilighting plugins, so that the editor can
             // automatically use them
@@ -252,10 +255,58 @@ public class SciJavaScriptingNodeDialog extends NodeDialogPane {
         m_codeEditPanel.add(columnListPane, BorderLayout.WEST);
 
         m_codeEditPanel.add(m_codeEditor.getEditorPane(), BorderLayout.CENTER);
+        m_codeEditPanel.add(m_compileStatus, BorderLayout.SOUTH);
 
         return m_codeEditPanel;
     }
 
+    /**
+     * Compile the code of the editor in the background after the user stopped
+     * typing, so that errors are shown early and the dialog panel is created
+     * from the compiled script when switching modes.
+     */
+    private void compileEditedCode() {
+        if (m_settings.getMode() != ScriptDialogMode.CODE_EDIT) {
+            return;
+        }
+        final String code = m_codeEditor.getCodeEditor().getCode();
+        final ScriptLanguage language = m_scriptService
+                .getLanguageByName(m_settings.getScriptLanguageName());
+        if (language == null) {
+            return;
+        }
+
+        m_compileStatus.setText("Compiling...");
+        m_compiler.compile(code, language, COMPILE_DELAY_MILLIS,
+                new BackgroundCompiler.Listener() {
+
+                    @Override
+                    public void compiled(final CompileProductHelper product) {
+                        m_compileProduct = product;
+                        m_oldCode = code;
+                        // NB: scripts of most languages are only parsed when
+                        // executed, there are no errors to show
+                        m_compileStatus.setText(
+                                CompileHelper.isCompiled(language)
+                                        ? "Script compiled."
+                                        : "No diagnostics available for "
+                                                + language.getLanguageName()
+                                                + " scripts.");
+                        m_compileStatus.setToolTipText(null);
+                    }
+
+                    @Override
+                    public void failed(final Throwable e) {
+                        m_compileStatus.setText("Compilation failed: "
+                                + e.getMessage());
+                        m_compileStatus
+                                .setToolTipText(m_errorWriter.getTail());
+                        // clear writer
+                        m_errorWriter.clear();
+                    }
+                });
+    }
+
     /**
      * creates the dialog pane.
      *
@@ -270,35 +321,70 @@ public class SciJavaScriptingNodeDialog extends NodeDialogPane {
             m_oldCode = ""; // ensure that we always recompile after an error
         }
 
-        // only recompile if code changed or compileProduct null
-        if (!m_settings.getScriptCode().equals(m_oldCode)
-                || m_compileProduct == null) {
-            m_oldCode = m_settings.getScriptCode();
-            try {
-                m_compileProduct = recompile(m_settings.getScriptCode(),
-                        m_settings.getScriptLanguageName());
-            } catch (final InvalidSettingsException e) {
-                // code did not compile show error instead
-                m_dialogSettingsService.clear();
-                m_simpleColumnMappingService.clear();
-                return createErrorPanel(e);
-            }
-        }
-
         // when switching from code clear settings
         if (clean) {
             m_dialogSettingsService.clear();
             m_simpleColumnMappingService.clear();
         }
 
-        // Build dialog panel
+        // only recompile if code changed or compileProduct null
+        final String code = m_settings.getScriptCode();
+        if (code.equals(m_oldCode) && m_compileProduct != null) {
+            return buildDialogPanel();
+        }
+
+        // compile in the background, the panel is replaced when done
+        m_compiler.compile(code, m_scriptService.getLanguageByName(
+                m_settings.getScriptLanguageName()), 0,
+                new BackgroundCompiler.Listener() {
+
+                    @Override
+                    public void compiled(final CompileProductHelper product) {
+                        m_compileProduct = product;
+                        m_oldCode = code;
+                        showDialogPanel(buildDialogPanel());
+                    }
+
+                    @Override
+                    public void failed(final Throwable e) {
+                        // code did not compile show error instead
+                        m_dialogSettingsService.clear();
+                        m_simpleColumnMappingService.clear();
+                        showDialogPanel(createErrorPanel(e));
+                    }
+                });
+
+        final JPanel compilingPanel = new JPanel();
+        compilingPanel.add(new JLabel("Compiling script..."));
+        return compilingPanel;
+    }
+
+    /*
+     * Replace the panel shown in the settings mode, e.g. after compiling the
+     * script. Does nothing if the user switched to the code editor meanwhile.
+     */
+    private void showDialogPanel(final JPanel panel) {
+        if (m_settings.getMode() != ScriptDialogMode.SETTINGS_EDIT) {
+            return;
+        }
+        m_innerPanel.removeAll();
+        m_innerPanel.add(panel, BorderLayout.CENTER);
+        getPanel().revalidate();
+        getPanel().repaint();
+    }
+
+    /*
+     * Build the panel for the inputs of the compiled script.
+     */
+    private JPanel buildDialogPanel() {
         m_autogenPanel.removeAll();
         m_inputPanel = new SwingInputPanel();
         final SwingInputHarvester builder = new SwingInputHarvester();
         builder.setContext(m_context);
 
         try {
-            m_module = m_compileProduct.createModule(getCurrentLanguage());
+            m_module = m_compileProduct.createModule(getCurrentLanguage(),
+                    m_context);
             // fill in services
             final ModuleRunner runner = new ModuleRunner(m_context, m_module,
                     m_preprocessPlugins, null);
@@ -324,10 +410,10 @@ public class SciJavaScriptingNodeDialog extends NodeDialogPane {
                 new JLabel("Can't create dialog, compilation failed! " + e));
         getLogger().error("Can't create dialog, compilation failed!", e);
 
-        final String error = m_errorWriter.toString();
+        final String error = m_errorWriter.getTail();
         m_errorPanel.add(new JTextArea(error));
         // clear writer
-        m_errorWriter.getBuffer().setLength(0);
+        m_errorWriter.clear();
 
         return m_errorPanel;
 
@@ -341,6 +427,25 @@ public class SciJavaScriptingNodeDialog extends NodeDialogPane {
                 getLogger(), this, m_settings);
         m_listener.setContext(m_context);
         m_codeEditor.addListener(m_listener);
+
+        m_codeEditor.getCodeEditor().getEditorPane().getDocument()
+                .addDocumentListener(new DocumentListener() {
+
+                    @Override
+                    public void insertUpdate(final DocumentEvent e) {
+                        compileEditedCode();
+                    }
+
+                    @Override
+                    public void removeUpdate(final DocumentEvent e) {
+                        compileEditedCode();
+                    }
+
+                    @Override
+                    public void changedUpdate(final DocumentEvent e) {
+                        // NB: attribute changes do not change the code
+                    }
+                });
     }
 
     /**
@@ -384,6 +489,74 @@ public class SciJavaScriptingNodeDialog extends NodeDialogPane {
         comp = colSuffixComp.getComponentPanel();
         contents.add(comp);
 
+        /* Number of modules executing rows in parallel */
+        final DialogComponentNumber parallelismComp = new DialogComponentNumber(
+                m_settings.getParallelismModel(), "Parallel Workers", 1);
+
+        m_codeEditor.dialogComponents().add(parallelismComp);
+
+        comp = parallelismComp.getComponentPanel();
+        contents.add(comp);
+
+        /* Run modules without the module service */
+        final DialogComponentBoolean directInvocationComp =
+                new DialogComponentBoolean(
+                        m_settings.getDirectInvocationModel(),
+                        "Direct Invocation");
+
+        m_codeEditor.dialogComponents().add(directInvocationComp);
+
+        comp = directInvocationComp.getComponentPanel();
+        contents.add(comp);
+
+        /* Number of rows passed to the module at once */
+        final DialogComponentNumber batchSizeComp = new DialogComponentNumber(
+                m_settings.getBatchSizeModel(), "Batch Size", 100);
+
+        m_codeEditor.dialogComponents().add(batchSizeComp);
+
+        comp = batchSizeComp.getComponentPanel();
+        contents.add(comp);
+
+        /* Push execution metrics as flow variables */
+        final DialogComponentBoolean metricsComp = new DialogComponentBoolean(
+                m_settings.getMetricsFlowVariablesModel(),
+                "Metrics as Flow Variables");
+
+        m_codeEditor.dialogComponents().add(metricsComp);
+
+        comp = metricsComp.getComponentPanel();
+        contents.add(comp);
+
+        /* Read and write rows on separate threads */
+        final DialogComponentBoolean pipelinedComp = new DialogComponentBoolean(
+                m_settings.getPipelinedModel(), "Pipelined Execution");
+
+        m_codeEditor.dialogComponents().add(pipelinedComp);
+
+        comp = pipelinedComp.getComponentPanel();
+        contents.add(comp);
+
+        /* Keep modules for the next execution, e.g. in loops */
+        final DialogComponentBoolean retainComp = new DialogComponentBoolean(
+                m_settings.getRetainModulesModel(), "Retain Modules");
+
+        m_codeEditor.dialogComponents().add(retainComp);
+
+        comp = retainComp.getComponentPanel();
+        contents.add(comp);
+
+        /* Reuse the results of repeated inputs */
+        final DialogComponentBoolean memoizeComp = new DialogComponentBoolean(
+                m_settings.getMemoizeModel(), "Memoize Results");
+
+        memoizeComp.setToolTipText("Reuse the results of repeated inputs."
+                + " Rows with images or other blob cells are always executed.");
+        m_codeEditor.dialogComponents().add(memoizeComp);
+
+        comp = memoizeComp.getComponentPanel();
+        contents.add(comp);
+
         outTablePane.add(contents, BorderLayout.NORTH);
 
         return outTablePane;
@@ -402,17 +575,6 @@ public class SciJavaScriptingNodeDialog extends NodeDialogPane {
         }
     }
 
-    private CompileProductHelper recompile(final String code,
-            final String scriptLanguageName) throws InvalidSettingsException {
-        try (final TempClassLoader tempCl = new TempClassLoader(
-                ScriptingGateway.get().createUrlClassLoader())) {
-            return m_compiler.compile(code,
-                    m_scriptService.getLanguageByName(scriptLanguageName));
-        } catch (final Exception e) {
-            throw new InvalidSettingsException(e);
-        }
-    }
-
     @Override
     public void onOpen() {
 
@@ -455,6 +617,12 @@ public class SciJavaScriptingNodeDialog extends NodeDialogPane {
         updateScriptLanguage();
     }
 
+    @Override
+    public void onClose() {
+        // NB: results of running compilations are discarded
+        m_compiler.cancel();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -545,6 +713,7 @@ public class SciJavaScriptingNodeDialog extends NodeDialogPane {
                 m_settings.setMode(ScriptDialogMode.SETTINGS_EDIT);
                 break;
             case SETTINGS_EDIT: // switch to code editor
+                m_compiler.cancel();
                 m_innerPanel.removeAll();
                 m_innerPanel.add(createCodeEditorPanel(), BorderLayout.CENTER);
                 m_modeSwitchButton.setText("Switch to Dialog");
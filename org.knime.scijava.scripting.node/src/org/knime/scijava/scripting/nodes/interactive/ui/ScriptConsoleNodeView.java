@@ -0,0 +1,99 @@
+package org.knime.scijava.scripting.nodes.interactive.ui;
+
+import java.awt.Font;
+import java.io.File;
+
+import javax.swing.JScrollPane;
+import javax.swing.JSplitPane;
+import javax.swing.JTextArea;
+import javax.swing.Timer;
+import javax.swing.border.TitledBorder;
+
+import org.knime.core.node.NodeView;
+import org.knime.scijava.scripting.nodes.interactive.SciJavaScriptingNodeModel;
+import org.knime.scijava.scripting.nodes.interactive.ScriptConsole;
+
+/**
+ * NodeView showing the tail of the console output and errors of the scripts
+ * of a {@link SciJavaScriptingNodeModel}. While open, the view is refreshed
+ * every second, so that the output of a running execution can be followed.
+ */
+public class ScriptConsoleNodeView extends NodeView<SciJavaScriptingNodeModel> {
+
+    private static final int REFRESH_MILLIS = 1000;
+
+    private final JTextArea m_output = createTextArea();
+    private final JTextArea m_errors = createTextArea();
+
+    private final Timer m_timer =
+            new Timer(REFRESH_MILLIS, e -> modelChanged());
+
+    /**
+     * Constructor.
+     *
+     * @param nodeModel
+     *            the node model to show the console of
+     */
+    public ScriptConsoleNodeView(final SciJavaScriptingNodeModel nodeModel) {
+        super(nodeModel);
+
+        final JScrollPane output = new JScrollPane(m_output);
+        output.setBorder(new TitledBorder("Output"));
+        final JScrollPane errors = new JScrollPane(m_errors);
+        errors.setBorder(new TitledBorder("Errors"));
+        final JSplitPane split =
+                new JSplitPane(JSplitPane.VERTICAL_SPLIT, output, errors);
+        split.setResizeWeight(0.7);
+        setComponent(split);
+        modelChanged();
+    }
+
+    @Override
+    protected void modelChanged() {
+        final SciJavaScriptingNodeModel model = getNodeModel();
+        if (model == null) {
+            m_output.setText("");
+            m_errors.setText("");
+            return;
+        }
+        show(m_output, model.getOutputConsole());
+        show(m_errors, model.getErrorConsole());
+    }
+
+    @Override
+    protected void onOpen() {
+        m_timer.start();
+    }
+
+    @Override
+    protected void onClose() {
+        m_timer.stop();
+    }
+
+    private static void show(final JTextArea text,
+            final ScriptConsole console) {
+        final String tail = console.getTail();
+        final long dropped = console.getWrittenChars() - tail.length();
+        final File file = console.getSpillFile();
+
+        // NB: show where the older output went
+        final StringBuilder header = new StringBuilder();
+        if (dropped > 0) {
+            header.append("[").append(dropped).append(
+                    " earlier characters not shown");
+            if (file != null) {
+                header.append(", see ").append(file.getAbsolutePath());
+            }
+            header.append("]\n");
+        }
+        text.setText(header + tail);
+        text.setCaretPosition(text.getDocument().getLength());
+    }
+
+    private static JTextArea createTextArea() {
+        final JTextArea text = new JTextArea(12, 80);
+        text.setEditable(false);
+        text.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        return text;
+    }
+}